@@ -1,13 +1,21 @@
 package edu.thu.benchmark.annotated.aspect;
 
+import edu.thu.benchmark.annotated.service.CommandAuditService;
+import edu.thu.benchmark.annotated.util.CommandArgumentValidator;
+import edu.thu.benchmark.annotated.util.CommandUtils;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * 命令执行切面
@@ -18,6 +26,60 @@ import java.util.List;
 public class CommandExecutionAspect {
 
     private static final List<String> ALLOWED_COMMANDS = Arrays.asList("ls", "echo", "cat");
+
+    private static final CommandArgumentValidator VALIDATOR = new CommandArgumentValidator(ALLOWED_COMMANDS, null);
+
+    @Autowired
+    private CommandAuditService commandAuditService;
+
+    /**
+     * 记录命令注入控制器中每次命令执行的审计信息
+     * 只计时并入队，数据库写入由审计服务的后台线程完成
+     */
+    @Around("execution(public String edu.thu.benchmark.annotated.controller.CommandInjectionController.*(..))")
+    public Object auditCommandExecution(ProceedingJoinPoint joinPoint) throws Throwable {
+        String command = Arrays.stream(joinPoint.getArgs())
+                .map(String::valueOf)
+                .collect(Collectors.joining(" "));
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            String output = result != null ? result.toString() : "";
+            commandAuditService.record(command, currentCaller(), statusOf(output), elapsedMillis(start), output);
+            return result;
+        } catch (Throwable e) {
+            commandAuditService.record(command, currentCaller(), "ERROR", elapsedMillis(start), e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 根据返回内容判断执行状态
+     */
+    private static String statusOf(String output) {
+        if (output.startsWith("Command not allowed")) {
+            return "REJECTED";
+        }
+        if (output.startsWith("Error")) {
+            return "ERROR";
+        }
+        return "SUCCESS";
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * 获取当前请求的客户端地址
+     */
+    private static String currentCaller() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            return ((ServletRequestAttributes) attributes).getRequest().getRemoteAddr();
+        }
+        return "system";
+    }
     
     /**
      * 不安全的命令执行方法 - 直接执行用户提供的命令
@@ -40,21 +102,12 @@ public class CommandExecutionAspect {
      */
     public String executeCommandSafe(String command) {
         try {
-            String[] parts = command.split("\\s+", 2);
-            
-            // 验证命令是否在白名单中
-            if (parts.length > 0 && ALLOWED_COMMANDS.contains(parts[0])) {
-                // 验证参数不包含危险字符
-                if (parts.length == 1 || !parts[1].matches(".*[;&|`\\\\\"'$].*")) {
-                    ProcessBuilder processBuilder = new ProcessBuilder();
-                    if (parts.length == 1) {
-                        processBuilder.command(parts[0]);
-                    } else {
-                        processBuilder.command(parts[0], parts[1]);
-                    }
-                    Process process = processBuilder.start();
-                    return readProcessOutput(process);
-                }
+            // 验证命令在白名单中且参数不包含危险字符
+            String[] parts = VALIDATOR.validate(command);
+            if (parts != null) {
+                ProcessBuilder processBuilder = new ProcessBuilder(parts);
+                Process process = processBuilder.start();
+                return readProcessOutput(process);
             }
             
             return "Command not allowed";
@@ -67,13 +120,7 @@ public class CommandExecutionAspect {
      * 辅助方法：读取进程输出
      */
     private String readProcessOutput(Process process) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            StringBuilder output = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            return output.toString();
-        }
+        // 统一的执行超时处理：超时后销毁进程树
+        return CommandUtils.readProcessOutput(process);
     }
 } 
\ No newline at end of file
@@ -1,16 +1,21 @@
 package edu.thu.benchmark.annotated.aspect;
 
+import edu.thu.benchmark.annotated.util.AsyncFileAppender;
+import edu.thu.benchmark.annotated.util.PathGuard;
 import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.regex.Pattern;
 
 /**
  * 文件访问切面
@@ -20,9 +25,42 @@ import java.nio.file.Paths;
 @Component
 public class FileAccessAspect {
 
+    private static final Pattern SANITIZE_PATTERN = Pattern.compile("[^a-zA-Z0-9_.-]");
+
     @Value("${log.dir}")
     private String logDir;
 
+    @Value("${aspect.file-access.access-log.capacity:8192}")
+    private int accessLogCapacity;
+
+    @Value("${aspect.file-access.access-log.max-file-size:10485760}")
+    private long accessLogMaxFileSize;
+
+    @Value("${aspect.file-access.access-log.max-backups:5}")
+    private int accessLogMaxBackups;
+
+    private final PathGuard pathGuard = PathGuard.getInstance();
+
+    // 访问日志由后台线程批量写入，切面中只做入队
+    private AsyncFileAppender accessLog;
+    private AsyncFileAppender safeAccessLog;
+
+    @PostConstruct
+    public void init() {
+        accessLog = new AsyncFileAppender("file-access-log-writer",
+                new File(logDir, "file_access.log").toPath(),
+                accessLogCapacity, accessLogMaxFileSize, accessLogMaxBackups);
+        safeAccessLog = new AsyncFileAppender("file-access-safe-log-writer",
+                Paths.get(logDir, "file_access_safe.log").normalize(),
+                accessLogCapacity, accessLogMaxFileSize, accessLogMaxBackups);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        accessLog.close();
+        safeAccessLog.close();
+    }
+
     /**
      * 不安全的日志文件访问实现
      * 在切面中直接使用用户提供的路径获取文件
@@ -49,46 +87,37 @@ public class FileAccessAspect {
      */
     public String accessLogFileSafe(String logFile) {
         try {
-            // 安全：规范化路径并验证
-            Path basePath = Paths.get(logDir).toAbsolutePath().normalize();
-            Path logPath = basePath.resolve(logFile).normalize();
-
-            // 验证最终路径是否在日志目录内
-            if (!logPath.startsWith(basePath)) {
-                throw new SecurityException("Access to the log file is not allowed");
-            }
-
-            if (!Files.isRegularFile(logPath)) {
-                throw new IOException("Log file not found or not a regular file");
-            }
-
+            Path logPath = resolveLogFileSafe(logFile);
             return new String(Files.readAllBytes(logPath));
         } catch (Exception e) {
             return "Error accessing log file: " + e.getMessage();
         }
     }
 
+    /**
+     * 安全的日志文件路径解析
+     * 规范化路径并验证日志文件位于日志目录内
+     *
+     * @param logFile 日志文件名
+     * @return 已验证的日志文件路径
+     */
+    public Path resolveLogFileSafe(String logFile) throws IOException {
+        // 安全：规范化路径并验证最终路径（含符号链接）是否在日志目录内
+        return pathGuard.resolveFile(logDir, logFile);
+    }
+
     /**
      * 记录不安全的文件访问操作
      * 直接记录用户提供的路径而不验证
      */
     @Before("execution(* edu.thu.benchmark.annotated.controller.PathTraversalController.getFile*(..))")
     public void logFileAccessUnsafe(JoinPoint joinPoint) {
-        try {
-            // 获取方法参数（文件路径）
-            Object[] args = joinPoint.getArgs();
-            if (args.length > 0 && args[0] instanceof String) {
-                String filePath = (String) args[0];
-                // 不安全：直接使用用户提供的路径构造日志文件路径
-                File logFile = new File(logDir, "file_access.log");
-                Files.write(logFile.toPath(),
-                        ("Accessed file: " + filePath + "\n").getBytes(),
-                        java.nio.file.StandardOpenOption.CREATE,
-                        java.nio.file.StandardOpenOption.APPEND);
-            }
-        } catch (IOException e) {
-            // 记录错误但不中断执行
-            System.err.println("Error logging file access: " + e.getMessage());
+        // 获取方法参数（文件路径）
+        Object[] args = joinPoint.getArgs();
+        if (args.length > 0 && args[0] instanceof String) {
+            String filePath = (String) args[0];
+            // 不安全：直接记录用户提供的路径
+            accessLog.append("Accessed file: " + filePath);
         }
     }
 
@@ -98,30 +127,16 @@ public class FileAccessAspect {
      */
     @Before("execution(* edu.thu.benchmark.annotated.controller.PathTraversalController.getFile*Safe*(..))")
     public void logFileAccessSafe(JoinPoint joinPoint) {
-        try {
-            // 获取方法参数（文件路径）
-            Object[] args = joinPoint.getArgs();
-            if (args.length > 0 && args[0] instanceof String) {
-                String filePath = (String) args[0];
-
-                // 安全：规范化并验证路径
-                String sanitizedPath = filePath.replaceAll("[^a-zA-Z0-9_.-]", "_");
+        // 获取方法参数（文件路径）
+        Object[] args = joinPoint.getArgs();
+        if (args.length > 0 && args[0] instanceof String) {
+            String filePath = (String) args[0];
 
-                // 构造安全的日志文件路径
-                Path logFilePath = Paths.get(logDir, "file_access_safe.log").normalize();
+            // 安全：规范化并验证路径
+            String sanitizedPath = SANITIZE_PATTERN.matcher(filePath).replaceAll("_");
 
-                // 确保日志目录存在
-                Files.createDirectories(logFilePath.getParent());
-
-                // 记录访问信息
-                Files.write(logFilePath,
-                        ("Safely accessed file: " + sanitizedPath + "\n").getBytes(),
-                        java.nio.file.StandardOpenOption.CREATE,
-                        java.nio.file.StandardOpenOption.APPEND);
-            }
-        } catch (IOException e) {
-            // 记录错误但不中断执行
-            System.err.println("Error safely logging file access: " + e.getMessage());
+            // 记录访问信息
+            safeAccessLog.append("Safely accessed file: " + sanitizedPath);
         }
     }
 
@@ -160,17 +175,11 @@ public class FileAccessAspect {
             if (args.length > 0 && args[0] instanceof String) {
                 String filePath = (String) args[0];
 
-                // 安全：规范化路径并验证
-                Path basePath = Paths.get(logDir).toAbsolutePath().normalize();
-                Path resolvedPath = basePath.resolve(filePath).normalize();
+                // 安全：规范化路径并验证最终路径（含符号链接）是否在允许的目录内且存在
+                Path resolvedPath = pathGuard.resolve(logDir, filePath, PathGuard.Kind.ANY);
 
-                // 验证最终路径是否在允许的目录内
-                if (resolvedPath.startsWith(basePath) && Files.exists(resolvedPath)) {
-                    // 在访问前执行某些操作，并验证路径安全性
-                    System.out.println("About to safely access file: " + resolvedPath);
-                } else {
-                    throw new SecurityException("Access to the file is not allowed or file does not exist");
-                }
+                // 在访问前执行某些操作，并验证路径安全性
+                System.out.println("About to safely access file: " + resolvedPath);
             }
         } catch (Exception e) {
             System.err.println("Error in safe file access aspect: " + e.getMessage());
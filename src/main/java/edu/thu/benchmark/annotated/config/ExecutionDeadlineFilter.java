@@ -0,0 +1,34 @@
+package edu.thu.benchmark.annotated.config;
+
+import edu.thu.benchmark.annotated.util.ExecutionDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 请求截止时间过滤器
+ * 为每个请求设置app.timeout截止时间，请求内的命令执行超过该时间后会被终止并销毁进程树
+ */
+@Component
+public class ExecutionDeadlineFilter extends OncePerRequestFilter {
+
+    @Value("${app.timeout}")
+    private long requestTimeoutMillis;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        ExecutionDeadline.start(requestTimeoutMillis);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ExecutionDeadline.clear();
+        }
+    }
+}
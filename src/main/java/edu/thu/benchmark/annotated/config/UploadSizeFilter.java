@@ -0,0 +1,40 @@
+package edu.thu.benchmark.annotated.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 上传大小过滤器
+ * 在解析multipart请求之前根据Content-Length拒绝超过大小限制的上传，不读取请求体。
+ * 未声明Content-Length的分块请求由spring.servlet.multipart的大小限制在解析时拦截
+ */
+@Component
+public class UploadSizeFilter extends OncePerRequestFilter {
+
+    @Value("${app.upload.max-request-size:10551296}")
+    private long maxRequestSize;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType == null || !contentType.toLowerCase().startsWith("multipart/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (request.getContentLengthLong() > maxRequestSize) {
+            response.setHeader("Connection", "close");
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Upload exceeds the size limit");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -5,14 +5,13 @@ import edu.thu.benchmark.annotated.annotation.VulnerabilityLevel;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityType;
 import edu.thu.benchmark.annotated.aspect.CommandExecutionAspect;
 import edu.thu.benchmark.annotated.service.CommandService;
+import edu.thu.benchmark.annotated.util.CommandArgumentValidator;
 import edu.thu.benchmark.annotated.util.CommandUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -287,7 +286,7 @@ public class CommandInjectionController {
         commands.add("ls");
 
         // 验证参数不包含特殊字符
-        if (!filter.matches(".*[;&|`\\\\\"'$].*")) {
+        if (!CommandArgumentValidator.containsShellMetacharacters(filter)) {
             if (filter.length() > 0) {
                 commands.add("-la");
                 commands.add(filter);
@@ -316,7 +315,7 @@ public class CommandInjectionController {
 
         if (parts.length > 0 && Arrays.asList(allowedPrefixes).contains(parts[0])) {
             // 验证参数不包含危险字符
-            if (parts.length == 1 || !parts[1].matches(".*[;&|`\\\\\"'$].*")) {
+            if (parts.length == 1 || !CommandArgumentValidator.containsShellMetacharacters(parts[1])) {
                 ProcessBuilder processBuilder = new ProcessBuilder();
                 if (parts.length == 1) {
                     processBuilder.command(parts[0]);
@@ -384,13 +383,7 @@ public class CommandInjectionController {
      * 辅助方法：读取进程输出
      */
     private String readProcessOutput(Process process) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            StringBuilder output = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            return output.toString();
-        }
+        // 统一的执行超时处理：超时后销毁进程树
+        return CommandUtils.readProcessOutput(process);
     }
 }
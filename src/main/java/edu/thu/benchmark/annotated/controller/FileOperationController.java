@@ -0,0 +1,320 @@
+package edu.thu.benchmark.annotated.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.thu.benchmark.annotated.aspect.FileAccessAspect;
+import edu.thu.benchmark.annotated.entity.DirectoryEntry;
+import edu.thu.benchmark.annotated.entity.DirectoryPage;
+import edu.thu.benchmark.annotated.entity.FilePage;
+import edu.thu.benchmark.annotated.entity.UploadSession;
+import edu.thu.benchmark.annotated.entity.ZipEntryPage;
+import edu.thu.benchmark.annotated.entity.ZipExtractionResult;
+import edu.thu.benchmark.annotated.service.ChunkedUploadService;
+import edu.thu.benchmark.annotated.service.ConfigFileService;
+import edu.thu.benchmark.annotated.service.FileStreamingService;
+import edu.thu.benchmark.annotated.service.PathTraversalService;
+import edu.thu.benchmark.annotated.service.TemplateService;
+import edu.thu.benchmark.annotated.service.ZipService;
+import edu.thu.benchmark.annotated.util.DirectoryLister;
+import edu.thu.benchmark.annotated.util.ZipStreamWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 文件操作控制器
+ * 提供流式传输、分页读取、目录列表、ZIP处理和分块上传等安全实现，与PathTraversalController共用/path前缀。
+ * 这些端点不是测试用例，单独放在此处，测试用例的行号与真值表保持一致
+ */
+@RestController
+@RequestMapping("/path")
+public class FileOperationController {
+
+    @Value("${file.base.dir}")
+    private String baseDir;
+
+    @Autowired
+    private PathTraversalService pathTraversalService;
+
+    @Autowired
+    private TemplateService templateService;
+
+    @Autowired
+    private FileAccessAspect fileAccessAspect;
+
+    @Autowired
+    private FileStreamingService fileStreamingService;
+
+    @Autowired
+    private ConfigFileService configFileService;
+
+    @Autowired
+    private ZipService zipService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ChunkedUploadService chunkedUploadService;
+
+    // ======== 文件流式传输（安全实现） ========
+
+    /**
+     * 流式传输基础目录中的文件，支持Range和ETag
+     */
+    @GetMapping("/stream/file")
+    public void streamFileSafe(@RequestParam String filePath,
+                               HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileStreamingService.serve(pathTraversalService.resolveFileSafe(filePath), request, response);
+    }
+
+    /**
+     * 流式传输模板文件，支持Range和ETag
+     */
+    @GetMapping("/stream/template")
+    public void streamTemplateSafe(@RequestParam String template,
+                                   HttpServletRequest request, HttpServletResponse response) throws IOException {
+        fileStreamingService.serve(templateService.resolveTemplateSafe(template), request, response);
+    }
+
+    /**
+     * 流式传输日志文件，支持Range和ETag
+     */
+    @GetMapping("/stream/log")
+    public void streamLogFileSafe(@RequestParam String logFile,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // 安全：验证文件名
+        if (logFile.contains("..") || logFile.contains("/") || logFile.contains("\\")) {
+            throw new SecurityException("Invalid log file name");
+        }
+        fileStreamingService.serve(fileAccessAspect.resolveLogFileSafe(logFile), request, response);
+    }
+
+    /**
+     * 返回缓存的模板内容，命中缓存时不访问磁盘
+     */
+    @GetMapping("/cached/template")
+    public ResponseEntity<byte[]> getCachedTemplateSafe(@RequestParam String template) throws IOException {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .body(templateService.getTemplateBytesSafe(template));
+    }
+
+    // ======== 配置文件缓存（安全实现） ========
+
+    /**
+     * 返回缓存的配置文件解析结果，按验证后的真实路径缓存并按修改时间重新验证
+     */
+    @GetMapping("/cached/config")
+    public Map<String, String> getCachedConfigFileSafe(@RequestParam String configFile) throws IOException {
+        // 安全：验证文件名
+        if (configFile.contains("..") || configFile.contains("/") || configFile.contains("\\")) {
+            throw new SecurityException("Invalid config file name");
+        }
+
+        if (!configFile.toLowerCase().endsWith(".properties") && !configFile.toLowerCase().endsWith(".xml")) {
+            throw new SecurityException("Invalid config file type");
+        }
+
+        return configFileService.loadPropertiesSafe(Paths.get(baseDir, "config").toString(), configFile);
+    }
+
+    /**
+     * 返回缓存的类路径属性文件解析结果
+     */
+    @GetMapping("/cached/properties")
+    public Map<String, String> getCachedPropertiesSafe(@RequestParam String propFile) throws IOException {
+        if (!propFile.endsWith(".properties")) {
+            throw new SecurityException("File must be a properties file");
+        }
+
+        return configFileService.loadClasspathProperties("config/" + propFile);
+    }
+
+    // ======== 文件分页读取（安全实现） ========
+
+    /**
+     * 按行分页读取文件，offset为上一页返回的nextOffset
+     */
+    @GetMapping("/page/file")
+    public FilePage readFilePageSafe(@RequestParam String filePath,
+                                     @RequestParam(defaultValue = "0") long offset,
+                                     @RequestParam(defaultValue = "100") int lines) throws IOException {
+        return pathTraversalService.readFileLinesSafe(filePath, offset, lines);
+    }
+
+    /**
+     * 按字节分页读取文件，offset为上一页返回的nextOffset
+     */
+    @GetMapping("/page/file/bytes")
+    public FilePage readFileBytesSafe(@RequestParam String filePath,
+                                      @RequestParam(defaultValue = "0") long offset,
+                                      @RequestParam(defaultValue = "65536") int limit) throws IOException {
+        return pathTraversalService.readFileBytesSafe(filePath, offset, limit);
+    }
+
+    /**
+     * 读取文件末尾的若干行
+     */
+    @GetMapping("/tail/file")
+    public FilePage tailFileSafe(@RequestParam String filePath,
+                                 @RequestParam(defaultValue = "100") int lines) throws IOException {
+        return pathTraversalService.tailFileSafe(filePath, lines);
+    }
+
+    // ======== 目录列表（安全实现） ========
+
+    /**
+     * 分页列出目录项，cursor为上一页返回的nextCursor
+     */
+    @GetMapping("/page/dir")
+    public DirectoryPage listDirectoryPageSafe(@RequestParam String dirPath,
+                                               @RequestParam(required = false) String glob,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "100") int limit) throws IOException {
+        checkGlob(glob);
+        return pathTraversalService.listFilesPageSafe(dirPath, glob, cursor, limit);
+    }
+
+    /**
+     * 以JSON数组流式输出全部目录项，边遍历边写出，不在内存中保存目录内容
+     */
+    @GetMapping("/stream/dir")
+    public ResponseEntity<StreamingResponseBody> streamDirectorySafe(@RequestParam String dirPath,
+                                                                     @RequestParam(required = false) String glob)
+            throws IOException {
+        checkGlob(glob);
+        // 在提交响应前完成路径验证，验证失败时按普通错误返回
+        DirectoryStream<Path> stream = pathTraversalService.openDirectorySafe(dirPath, glob);
+        StreamingResponseBody body = out -> {
+            try (DirectoryStream<Path> entries = stream;
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                for (Path path : entries) {
+                    DirectoryEntry entry = DirectoryLister.entry(path);
+                    if (entry != null) {
+                        generator.writeObject(entry);
+                    }
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 过滤模式语法错误属于请求错误，返回400而不是500
+     */
+    private static void checkGlob(String glob) {
+        if (!DirectoryLister.isValidGlob(glob)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid glob pattern");
+        }
+    }
+
+    /**
+     * 直接输出ZIP条目的原始字节，不解码也不缓存完整内容
+     */
+    @GetMapping("/stream/zip-entry")
+    public void streamZipEntrySafe(@RequestParam String zipFile, @RequestParam String entry,
+                                   HttpServletResponse response) throws IOException {
+        MediaType mediaType = MediaTypeFactory.getMediaType(entry).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        response.setContentType(mediaType.toString());
+        zipService.writeZipEntrySafe(zipFile, entry, response.getOutputStream());
+    }
+
+    /**
+     * 并行解压ZIP文件，返回解压条目数与吞吐量
+     */
+    @PostMapping("/extract/zip")
+    public ZipExtractionResult extractZipSafe(@RequestParam String zipFile) throws IOException {
+        return zipService.extractZipWithReportSafe(zipFile);
+    }
+
+    /**
+     * 将多个文件打包为ZIP流式下载，不使用临时文件
+     */
+    @GetMapping("/download/zip")
+    public ResponseEntity<StreamingResponseBody> downloadZipSafe(@RequestParam List<String> files) throws IOException {
+        // 在提交响应前完成全部路径验证，验证失败时按普通错误返回
+        Map<String, Path> sources = zipService.resolveArchiveSourcesSafe(files);
+        StreamingResponseBody body = out -> ZipStreamWriter.write(sources, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"files.zip\"")
+                .body(body);
+    }
+
+    /**
+     * 分页列出ZIP条目的名称、大小、压缩大小与CRC，不解压条目
+     */
+    @GetMapping("/page/zip")
+    public ZipEntryPage listZipEntriesSafe(@RequestParam String zipFile,
+                                          @RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "100") int limit) throws IOException {
+        return zipService.listZipEntriesSafe(zipFile, cursor, limit);
+    }
+
+    // ======== 分块上传（安全实现） ========
+
+    /**
+     * 创建分块上传会话
+     */
+    @PostMapping("/upload/chunked/init")
+    public UploadSession initChunkedUpload(@RequestParam String fileName, @RequestParam long size,
+                                           @RequestParam(defaultValue = "4194304") int chunkSize) throws IOException {
+        return chunkedUploadService.initUpload(fileName, size, chunkSize);
+    }
+
+    /**
+     * 上传一个分块，请求体为分块的原始字节，分块可以并行上传
+     */
+    @PutMapping("/upload/chunked/chunk")
+    public ResponseEntity<Void> putChunk(@RequestParam String uploadId, @RequestParam long offset,
+                                         HttpServletRequest request) throws IOException {
+        chunkedUploadService.writeChunk(uploadId, offset, request.getInputStream());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * 查询上传进度与缺失的分块
+     */
+    @GetMapping("/upload/chunked/status")
+    public UploadSession getChunkedUpload(@RequestParam String uploadId) {
+        return chunkedUploadService.getUpload(uploadId);
+    }
+
+    /**
+     * 校验SHA-256并完成上传
+     */
+    @PostMapping("/upload/chunked/complete")
+    public String completeChunkedUpload(@RequestParam String uploadId, @RequestParam String sha256)
+            throws IOException {
+        return chunkedUploadService.completeUpload(uploadId, sha256);
+    }
+
+    /**
+     * 放弃上传
+     */
+    @DeleteMapping("/upload/chunked")
+    public ResponseEntity<Void> abortChunkedUpload(@RequestParam String uploadId) throws IOException {
+        chunkedUploadService.abortUpload(uploadId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,23 @@
+package edu.thu.benchmark.annotated.controller;
+
+import edu.thu.benchmark.annotated.util.BufferPool;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * 运行指标控制器
+ * 提供压测时使用的统计数据，不属于测试用例
+ */
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    /**
+     * 复制缓冲区池与JVM分配统计，压测前后各取一次比较增量
+     */
+    @GetMapping("/buffers")
+    public Map<String, Long> getBufferStatistics() {
+        return BufferPool.getInstance().getStatistics();
+    }
+}
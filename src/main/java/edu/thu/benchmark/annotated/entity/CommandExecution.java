@@ -11,6 +11,7 @@ public class CommandExecution {
     private String executedBy;
     private LocalDateTime executionTime;
     private String status;
+    private Long durationMs;
     private String output;
 
     public CommandExecution() {
@@ -63,6 +64,14 @@ public class CommandExecution {
         this.status = status;
     }
 
+    public Long getDurationMs() {
+        return durationMs;
+    }
+
+    public void setDurationMs(Long durationMs) {
+        this.durationMs = durationMs;
+    }
+
     public String getOutput() {
         return output;
     }
@@ -79,6 +88,7 @@ public class CommandExecution {
                 ", executedBy='" + executedBy + '\'' +
                 ", executionTime=" + executionTime +
                 ", status='" + status + '\'' +
+                ", durationMs=" + durationMs +
                 ", output='" + output + '\'' +
                 '}';
     }
@@ -0,0 +1,71 @@
+package edu.thu.benchmark.annotated.entity;
+
+/**
+ * 目录项实体类
+ */
+public class DirectoryEntry {
+    private String name;
+    private boolean directory;
+    private boolean symbolicLink;
+    private Long size;
+    private Long lastModified;
+
+    public DirectoryEntry() {
+    }
+
+    public DirectoryEntry(String name) {
+        this.name = name;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(boolean directory) {
+        this.directory = directory;
+    }
+
+    public boolean isSymbolicLink() {
+        return symbolicLink;
+    }
+
+    public void setSymbolicLink(boolean symbolicLink) {
+        this.symbolicLink = symbolicLink;
+    }
+
+    public Long getSize() {
+        return size;
+    }
+
+    public void setSize(Long size) {
+        this.size = size;
+    }
+
+    public Long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(Long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "DirectoryEntry{" +
+                "name='" + name + '\'' +
+                ", directory=" + directory +
+                ", symbolicLink=" + symbolicLink +
+                ", size=" + size +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
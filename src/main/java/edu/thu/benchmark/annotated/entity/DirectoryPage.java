@@ -0,0 +1,56 @@
+package edu.thu.benchmark.annotated.entity;
+
+import java.util.List;
+
+/**
+ * 目录分页列表结果实体类
+ * 目录项按名称排序，客户端将nextCursor作为下一次请求的游标
+ */
+public class DirectoryPage {
+    private List<DirectoryEntry> entries;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public DirectoryPage() {
+    }
+
+    public DirectoryPage(List<DirectoryEntry> entries, String nextCursor, boolean hasMore) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<DirectoryEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<DirectoryEntry> entries) {
+        this.entries = entries;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "DirectoryPage{" +
+                "entries=" + (entries != null ? entries.size() : 0) +
+                ", nextCursor='" + nextCursor + '\'' +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
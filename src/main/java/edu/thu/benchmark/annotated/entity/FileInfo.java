@@ -12,6 +12,8 @@ public class FileInfo {
     private String contentType;
     private Long size;
     private LocalDateTime uploadTime;
+    // 内容寻址存储中的SHA-256，未使用内容寻址存储时为null
+    private String contentHash;
 
     public FileInfo() {
     }
@@ -73,6 +75,14 @@ public class FileInfo {
         this.uploadTime = uploadTime;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     @Override
     public String toString() {
         return "FileInfo{" +
@@ -82,6 +92,7 @@ public class FileInfo {
                 ", contentType='" + contentType + '\'' +
                 ", size=" + size +
                 ", uploadTime=" + uploadTime +
+                ", contentHash='" + contentHash + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,86 @@
+package edu.thu.benchmark.annotated.entity;
+
+/**
+ * 文件分页读取结果实体类
+ * offset和nextOffset为字节偏移量，客户端将nextOffset作为下一次请求的游标
+ */
+public class FilePage {
+    private String content;
+    private long offset;
+    private long nextOffset;
+    private long fileSize;
+    private int lineCount;
+    private boolean eof;
+
+    public FilePage() {
+    }
+
+    public FilePage(String content, long offset, long nextOffset, long fileSize, int lineCount) {
+        this.content = content;
+        this.offset = offset;
+        this.nextOffset = nextOffset;
+        this.fileSize = fileSize;
+        this.lineCount = lineCount;
+        this.eof = nextOffset >= fileSize;
+    }
+
+    // Getters and Setters
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public void setNextOffset(long nextOffset) {
+        this.nextOffset = nextOffset;
+    }
+
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public void setLineCount(int lineCount) {
+        this.lineCount = lineCount;
+    }
+
+    public boolean isEof() {
+        return eof;
+    }
+
+    public void setEof(boolean eof) {
+        this.eof = eof;
+    }
+
+    @Override
+    public String toString() {
+        return "FilePage{" +
+                "offset=" + offset +
+                ", nextOffset=" + nextOffset +
+                ", fileSize=" + fileSize +
+                ", lineCount=" + lineCount +
+                ", eof=" + eof +
+                '}';
+    }
+}
@@ -0,0 +1,102 @@
+package edu.thu.benchmark.annotated.entity;
+
+import java.util.List;
+
+/**
+ * 分块上传会话实体类
+ * 文件按chunkSize划分为chunkCount个分块，最后一个分块可以较短；
+ * missingChunks为尚未收到的分块序号（最多返回前1000个），客户端据此续传
+ */
+public class UploadSession {
+    private String uploadId;
+    private String fileName;
+    private long size;
+    private int chunkSize;
+    private int chunkCount;
+    private int receivedChunks;
+    private List<Integer> missingChunks;
+
+    public UploadSession() {
+    }
+
+    public UploadSession(String uploadId, String fileName, long size, int chunkSize, int chunkCount,
+                         int receivedChunks, List<Integer> missingChunks) {
+        this.uploadId = uploadId;
+        this.fileName = fileName;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunkCount = chunkCount;
+        this.receivedChunks = receivedChunks;
+        this.missingChunks = missingChunks;
+    }
+
+    // Getters and Setters
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(int chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public int getReceivedChunks() {
+        return receivedChunks;
+    }
+
+    public void setReceivedChunks(int receivedChunks) {
+        this.receivedChunks = receivedChunks;
+    }
+
+    public List<Integer> getMissingChunks() {
+        return missingChunks;
+    }
+
+    public void setMissingChunks(List<Integer> missingChunks) {
+        this.missingChunks = missingChunks;
+    }
+
+    @Override
+    public String toString() {
+        return "UploadSession{" +
+                "uploadId='" + uploadId + '\'' +
+                ", fileName='" + fileName + '\'' +
+                ", size=" + size +
+                ", chunkSize=" + chunkSize +
+                ", chunkCount=" + chunkCount +
+                ", receivedChunks=" + receivedChunks +
+                ", missingChunks=" + (missingChunks != null ? missingChunks.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package edu.thu.benchmark.annotated.entity;
+
+/**
+ * ZIP条目元数据实体类
+ * 数据来自中央目录，大小或CRC未知时为-1
+ */
+public class ZipEntryInfo {
+    private String name;
+    private boolean directory;
+    private long size;
+    private long compressedSize;
+    private long crc;
+    private long lastModified;
+
+    public ZipEntryInfo() {
+    }
+
+    public ZipEntryInfo(String name, boolean directory, long size, long compressedSize, long crc, long lastModified) {
+        this.name = name;
+        this.directory = directory;
+        this.size = size;
+        this.compressedSize = compressedSize;
+        this.crc = crc;
+        this.lastModified = lastModified;
+    }
+
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(boolean directory) {
+        this.directory = directory;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    public void setCompressedSize(long compressedSize) {
+        this.compressedSize = compressedSize;
+    }
+
+    public long getCrc() {
+        return crc;
+    }
+
+    public void setCrc(long crc) {
+        this.crc = crc;
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(long lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "ZipEntryInfo{" +
+                "name='" + name + '\'' +
+                ", directory=" + directory +
+                ", size=" + size +
+                ", compressedSize=" + compressedSize +
+                ", crc=" + crc +
+                ", lastModified=" + lastModified +
+                '}';
+    }
+}
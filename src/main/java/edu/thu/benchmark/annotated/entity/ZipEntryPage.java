@@ -0,0 +1,56 @@
+package edu.thu.benchmark.annotated.entity;
+
+import java.util.List;
+
+/**
+ * ZIP条目分页列表结果实体类
+ * 条目按名称排序，客户端将nextCursor作为下一次请求的游标
+ */
+public class ZipEntryPage {
+    private List<ZipEntryInfo> entries;
+    private String nextCursor;
+    private boolean hasMore;
+
+    public ZipEntryPage() {
+    }
+
+    public ZipEntryPage(List<ZipEntryInfo> entries, String nextCursor, boolean hasMore) {
+        this.entries = entries;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    // Getters and Setters
+    public List<ZipEntryInfo> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<ZipEntryInfo> entries) {
+        this.entries = entries;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "ZipEntryPage{" +
+                "entries=" + (entries != null ? entries.size() : 0) +
+                ", nextCursor='" + nextCursor + '\'' +
+                ", hasMore=" + hasMore +
+                '}';
+    }
+}
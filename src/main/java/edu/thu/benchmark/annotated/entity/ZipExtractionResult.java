@@ -0,0 +1,101 @@
+package edu.thu.benchmark.annotated.entity;
+
+/**
+ * ZIP解压结果实体类
+ */
+public class ZipExtractionResult {
+    private int entries;
+    private int directories;
+    private int failed;
+    private long bytes;
+    private long elapsedMillis;
+    private int workers;
+
+    public ZipExtractionResult() {
+    }
+
+    public ZipExtractionResult(int entries, int directories, int failed, long bytes, long elapsedMillis, int workers) {
+        this.entries = entries;
+        this.directories = directories;
+        this.failed = failed;
+        this.bytes = bytes;
+        this.elapsedMillis = elapsedMillis;
+        this.workers = workers;
+    }
+
+    // Getters and Setters
+    public int getEntries() {
+        return entries;
+    }
+
+    public void setEntries(int entries) {
+        this.entries = entries;
+    }
+
+    public int getDirectories() {
+        return directories;
+    }
+
+    public void setDirectories(int directories) {
+        this.directories = directories;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public void setBytes(long bytes) {
+        this.bytes = bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * 解压吞吐量（MB/s）
+     */
+    public double getMegabytesPerSecond() {
+        return elapsedMillis > 0 ? bytes / (1024.0 * 1024.0) / (elapsedMillis / 1000.0) : 0;
+    }
+
+    /**
+     * 解压吞吐量（条目/s）
+     */
+    public double getEntriesPerSecond() {
+        return elapsedMillis > 0 ? entries / (elapsedMillis / 1000.0) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ZipExtractionResult{" +
+                "entries=" + entries +
+                ", directories=" + directories +
+                ", failed=" + failed +
+                ", bytes=" + bytes +
+                ", elapsedMillis=" + elapsedMillis +
+                ", workers=" + workers +
+                String.format(", %.1f MB/s, %.1f entries/s", getMegabytesPerSecond(), getEntriesPerSecond()) +
+                '}';
+    }
+}
@@ -0,0 +1,402 @@
+package edu.thu.benchmark.annotated.service;
+
+import edu.thu.benchmark.annotated.entity.UploadSession;
+import edu.thu.benchmark.annotated.util.BufferPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分块上传服务
+ * 初始化时按声明的大小预分配稀疏文件，各分块通过定位写入直接写到文件中的对应位置，
+ * 分块可以并行上传，连接中断后只需重传缺失的分块；全部分块到齐后校验SHA-256并原子移动到上传目录
+ */
+@Service
+public class ChunkedUploadService {
+
+    // 返回的缺失分块序号数上限
+    private static final int MAX_MISSING_REPORTED = 1000;
+
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    @Value("${app.upload.directory}")
+    private String uploadDirectory;
+
+    @Value("${app.upload.allowed-extensions}")
+    private String allowedExtensions;
+
+    // 未完成上传的暂存目录
+    @Value("${app.upload.chunked.dir:/tmp/uploads-partial}")
+    private String stagingDirectory;
+
+    @Value("${app.upload.chunked.max-size:1073741824}")
+    private long maxFileSize;
+
+    @Value("${app.upload.chunked.max-chunk-size:8388608}")
+    private int maxChunkSize;
+
+    // 同时进行的上传会话数上限
+    @Value("${app.upload.chunked.max-sessions:100}")
+    private int maxSessions;
+
+    // 会话无活动多久后被清理（毫秒）
+    @Value("${app.upload.chunked.session-timeout:86400000}")
+    private long sessionTimeout;
+
+    private final BufferPool bufferPool = BufferPool.getInstance();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService sweeper;
+
+    @PostConstruct
+    public void init() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "chunked-upload-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(sessionTimeout / 10, 1000);
+        sweeper.scheduleWithFixedDelay(this::removeExpired, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 创建上传会话并预分配文件
+     *
+     * @param fileName 原始文件名，仅用于验证扩展名，存储时使用随机文件名
+     * @param size 文件总字节数
+     * @param chunkSize 分块大小
+     * @return 上传会话
+     */
+    public UploadSession initUpload(String fileName, long size, int chunkSize) throws IOException {
+        if (!isAllowedFileType(fileName)) {
+            throw new IllegalArgumentException("不支持的文件类型");
+        }
+        if (size <= 0 || size > maxFileSize) {
+            throw new IllegalArgumentException("文件大小超过限制");
+        }
+        if (chunkSize < MIN_CHUNK_SIZE || chunkSize > maxChunkSize) {
+            throw new IllegalArgumentException("分块大小必须在" + MIN_CHUNK_SIZE + "到" + maxChunkSize + "字节之间");
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new IllegalStateException("Too many uploads in progress");
+        }
+
+        Path staging = Files.createDirectories(Paths.get(stagingDirectory));
+        String uploadId = UUID.randomUUID().toString();
+        Path partFile = staging.resolve(uploadId + ".part");
+        FileChannel channel = FileChannel.open(partFile, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SPARSE);
+        try {
+            // 在末尾写入一个字节预分配文件大小，未写入的区域不占用磁盘空间
+            channel.write(ByteBuffer.allocate(1), size - 1);
+        } catch (IOException e) {
+            channel.close();
+            Files.deleteIfExists(partFile);
+            throw e;
+        }
+
+        Session session = new Session(uploadId, fileName, size, chunkSize, partFile, channel);
+        sessions.put(uploadId, session);
+        return session.snapshot();
+    }
+
+    /**
+     * 写入一个分块，重复写入同一分块会覆盖之前的内容
+     *
+     * @param uploadId 上传会话ID
+     * @param offset 分块在文件中的字节偏移量，必须是分块大小的整数倍
+     * @param in 分块内容，读取的字节数必须与分块长度一致
+     */
+    public void writeChunk(String uploadId, long offset, InputStream in) throws IOException {
+        Session session = getSession(uploadId);
+        if (offset < 0 || offset >= session.size || offset % session.chunkSize != 0) {
+            throw new IllegalArgumentException("Invalid chunk offset: " + offset);
+        }
+        int index = (int) (offset / session.chunkSize);
+        long length = Math.min(session.chunkSize, session.size - offset);
+
+        session.beginWrite();
+        byte[] buffer = bufferPool.acquire();
+        boolean complete = false;
+        try {
+            long written = 0;
+            int len;
+            while ((len = in.read(buffer, 0, (int) Math.min(buffer.length, length - written + 1))) > 0) {
+                if (written + len > length) {
+                    throw new IllegalArgumentException("Chunk is larger than expected: " + length);
+                }
+                // 定位写入不改变通道位置，多个分块可以并发写入同一个通道
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, len);
+                while (chunk.hasRemaining()) {
+                    written += session.channel.write(chunk, offset + written);
+                }
+            }
+            if (written != length) {
+                throw new IOException("Incomplete chunk: expected " + length + " bytes, got " + written);
+            }
+            complete = true;
+        } finally {
+            bufferPool.release(buffer);
+            session.endWrite(index, complete);
+        }
+    }
+
+    /**
+     * 获取上传进度，客户端据此重传缺失的分块
+     */
+    public UploadSession getUpload(String uploadId) {
+        return getSession(uploadId).snapshot();
+    }
+
+    /**
+     * 完成上传：校验SHA-256后移动到上传目录
+     * 校验失败时会话被删除，需要重新上传
+     *
+     * @param uploadId 上传会话ID
+     * @param sha256 客户端计算的文件SHA-256（十六进制）
+     * @return 存储的文件路径
+     */
+    public String completeUpload(String uploadId, String sha256) throws IOException {
+        Session session = getSession(uploadId);
+        session.beginComplete();
+        sessions.remove(uploadId, session);
+        try {
+            String actual = sha256(session.channel);
+            if (!actual.equalsIgnoreCase(sha256)) {
+                throw new IllegalArgumentException("SHA-256 mismatch");
+            }
+            session.channel.force(true);
+            session.close();
+
+            // 生成安全的随机文件名，但保留原始扩展名
+            Path directory = Paths.get(uploadDirectory);
+            Files.createDirectories(directory);
+            Path target = directory.resolve(UUID.randomUUID().toString() + extension(session.fileName));
+            try {
+                Files.move(session.partFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // 暂存目录与上传目录不在同一文件系统时先复制到目标目录的临时文件，
+                // 由复制创建临时文件，沿用暂存文件的默认权限而不是createTempFile的0600
+                Path temp = directory.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+                try {
+                    Files.copy(session.partFile, temp);
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+            return target.toString();
+        } finally {
+            session.close();
+            Files.deleteIfExists(session.partFile);
+        }
+    }
+
+    /**
+     * 放弃上传并删除已写入的内容
+     */
+    public void abortUpload(String uploadId) throws IOException {
+        Session session = sessions.remove(uploadId);
+        if (session == null) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+        session.close();
+        Files.deleteIfExists(session.partFile);
+    }
+
+    private Session getSession(String uploadId) {
+        Session session = uploadId != null ? sessions.get(uploadId) : null;
+        if (session == null) {
+            throw new IllegalArgumentException("Upload not found");
+        }
+        return session;
+    }
+
+    private String sha256(FileChannel channel) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = bufferPool.acquire();
+        try {
+            long position = 0;
+            int read;
+            ByteBuffer chunk = ByteBuffer.wrap(buffer);
+            while ((read = channel.read(chunk, position)) > 0) {
+                digest.update(buffer, 0, read);
+                position += read;
+                chunk.clear();
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 后台线程：清理超时未活动的会话
+     */
+    private void removeExpired() {
+        long deadline = System.currentTimeMillis() - sessionTimeout;
+        Iterator<Session> iterator = sessions.values().iterator();
+        while (iterator.hasNext()) {
+            Session session = iterator.next();
+            if (session.isIdleSince(deadline)) {
+                iterator.remove();
+                try {
+                    session.close();
+                    Files.deleteIfExists(session.partFile);
+                } catch (IOException e) {
+                    System.err.println("Error removing expired upload " + session.uploadId + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 检查文件类型是否允许
+     */
+    private boolean isAllowedFileType(String fileName) {
+        String extension = extension(fileName).toLowerCase();
+        if (extension.isEmpty()) {
+            return false;
+        }
+        for (String allowedExt : allowedExtensions.split(",")) {
+            if (extension.equals(allowedExt.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null || !fileName.contains(".")) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf("."));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        // 保留暂存文件，只关闭通道
+        for (Session session : sessions.values()) {
+            session.close();
+        }
+    }
+
+    /**
+     * 上传会话，分块状态在会话锁内访问
+     */
+    private static final class Session {
+        private final String uploadId;
+        private final String fileName;
+        private final long size;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final Path partFile;
+        private final FileChannel channel;
+        private final BitSet received;
+        private int writers;
+        private boolean completing;
+        private long lastUpdated = System.currentTimeMillis();
+
+        Session(String uploadId, String fileName, long size, int chunkSize, Path partFile, FileChannel channel) {
+            this.uploadId = uploadId;
+            this.fileName = fileName;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.partFile = partFile;
+            this.channel = channel;
+            this.received = new BitSet(chunkCount);
+        }
+
+        synchronized void beginWrite() {
+            if (completing) {
+                throw new IllegalStateException("Upload is being completed");
+            }
+            writers++;
+            lastUpdated = System.currentTimeMillis();
+        }
+
+        synchronized void endWrite(int index, boolean complete) {
+            writers--;
+            lastUpdated = System.currentTimeMillis();
+            if (complete) {
+                received.set(index);
+            } else {
+                // 不完整的分块需要重传
+                received.clear(index);
+            }
+        }
+
+        synchronized void beginComplete() {
+            if (completing) {
+                throw new IllegalStateException("Upload is being completed");
+            }
+            if (writers > 0) {
+                throw new IllegalStateException("Chunks are still being written");
+            }
+            if (received.cardinality() < chunkCount) {
+                throw new IllegalStateException("Missing chunks: " + (chunkCount - received.cardinality()));
+            }
+            completing = true;
+        }
+
+        synchronized boolean isIdleSince(long deadline) {
+            return writers == 0 && !completing && lastUpdated < deadline;
+        }
+
+        synchronized UploadSession snapshot() {
+            List<Integer> missing = new ArrayList<>();
+            for (int i = received.nextClearBit(0); i < chunkCount && missing.size() < MAX_MISSING_REPORTED;
+                 i = received.nextClearBit(i + 1)) {
+                missing.add(i);
+            }
+            return new UploadSession(uploadId, fileName, size, chunkSize, chunkCount, received.cardinality(),
+                    missing);
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing upload " + uploadId + ": " + e.getMessage());
+            }
+        }
+    }
+}
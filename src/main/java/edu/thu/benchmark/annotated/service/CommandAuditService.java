@@ -0,0 +1,110 @@
+package edu.thu.benchmark.annotated.service;
+
+import edu.thu.benchmark.annotated.entity.CommandExecution;
+import edu.thu.benchmark.annotated.util.AsyncBatchWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * 命令执行审计服务
+ * 将命令执行记录放入异步批量写入器，由后台线程批量插入command_executions表
+ */
+@Service
+public class CommandAuditService {
+
+    private static final String INSERT_SQL = "INSERT INTO command_executions "
+            + "(command, executed_by, execution_time, status, duration_ms, output) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // 与command_executions表的列长度保持一致
+    private static final int MAX_COMMAND_LENGTH = 1000;
+    private static final int MAX_EXECUTED_BY_LENGTH = 50;
+    private static final int MAX_STATUS_LENGTH = 20;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.command.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.command.audit.capacity:8192}")
+    private int capacity;
+
+    @Value("${app.command.audit.batch-size:256}")
+    private int batchSize;
+
+    @Value("${app.command.audit.max-output:4096}")
+    private int maxOutputLength;
+
+    private AsyncBatchWriter<CommandExecution> writer;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            writer = new AsyncBatchWriter<>("command-audit-writer", capacity, batchSize, 1000, this::insertBatch);
+        }
+    }
+
+    /**
+     * 记录一次命令执行，只做截断和入队，不访问数据库
+     *
+     * @param command 执行的命令
+     * @param executedBy 调用方
+     * @param status 执行状态
+     * @param durationMs 执行耗时（毫秒）
+     * @param output 命令输出
+     */
+    public void record(String command, String executedBy, String status, long durationMs, String output) {
+        if (writer == null) {
+            return;
+        }
+        CommandExecution execution = new CommandExecution(
+                truncate(command, MAX_COMMAND_LENGTH),
+                truncate(executedBy, MAX_EXECUTED_BY_LENGTH));
+        execution.setStatus(truncate(status, MAX_STATUS_LENGTH));
+        execution.setDurationMs(durationMs);
+        execution.setOutput(truncate(output, maxOutputLength));
+        writer.offer(execution);
+    }
+
+    /**
+     * 后台线程：使用JDBC批量插入
+     */
+    private void insertBatch(List<CommandExecution> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, execution) -> {
+            ps.setString(1, execution.getCommand() != null ? execution.getCommand() : "");
+            ps.setString(2, execution.getExecutedBy());
+            ps.setTimestamp(3, Timestamp.valueOf(execution.getExecutionTime()));
+            ps.setString(4, execution.getStatus());
+            ps.setLong(5, execution.getDurationMs());
+            ps.setString(6, execution.getOutput());
+        });
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * 获取因缓冲区已满而丢弃的审计记录数
+     */
+    public long getDroppedCount() {
+        return writer != null ? writer.getDroppedCount() : 0;
+    }
+}
@@ -3,16 +3,15 @@ package edu.thu.benchmark.annotated.service;
 import edu.thu.benchmark.annotated.annotation.Vulnerability;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityLevel;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityType;
+import edu.thu.benchmark.annotated.util.CommandArgumentValidator;
+import edu.thu.benchmark.annotated.util.CommandUtils;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * 命令执行服务
@@ -35,6 +34,13 @@ public class CommandService {
 
     private static final List<String> ALLOWED_COMMANDS = Arrays.asList("ls", "echo", "cat");
 
+    // 启动时编译一次的白名单验证器
+    private static final CommandArgumentValidator VALIDATOR = new CommandArgumentValidator(ALLOWED_COMMANDS, null);
+
+    // 可选的常驻Shell进程池
+    @Autowired
+    private ShellWorkerPool shellWorkerPool;
+
     /**
      * 不安全的命令执行方法
      * 直接拼接用户输入作为命令参数
@@ -47,18 +53,16 @@ public class CommandService {
             level = VulnerabilityLevel.CRITICAL
     )
     public String executeCommandUnsafe(String command) throws IOException {
+        // 启用进程池时由常驻Shell执行，省去每次启动bash的开销
+        if (shellWorkerPool.isEnabled()) {
+            return shellWorkerPool.execute(command);
+        }
+
         // 不安全：直接使用用户输入的命令
         Process process = Runtime.getRuntime().exec(commandExecutor + " -c \"" + command + "\"");
 
         // 读取命令输出
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-        StringBuilder output = new StringBuilder();
-        String line;
-        while ((line = reader.readLine()) != null) {
-            output.append(line).append("\n");
-        }
-
-        return output.toString();
+        return readProcessOutput(process);
     }
 
     /**
@@ -67,21 +71,12 @@ public class CommandService {
      */
     public String executeCommandSafe(String command) throws IOException {
         try {
-            String[] parts = command.split("\\s+", 2);
-
-            // 验证命令是否在白名单中
-            if (parts.length > 0 && ALLOWED_COMMANDS.contains(parts[0])) {
-                // 验证参数不包含危险字符
-                if (parts.length == 1 || !parts[1].matches(".*[;&|`\\\\\"'$].*")) {
-                    ProcessBuilder processBuilder = new ProcessBuilder();
-                    if (parts.length == 1) {
-                        processBuilder.command(parts[0]);
-                    } else {
-                        processBuilder.command(parts[0], parts[1]);
-                    }
-                    Process process = processBuilder.start();
-                    return readProcessOutput(process);
-                }
+            // 验证命令在白名单中，且参数不含危险字符
+            String[] parts = VALIDATOR.validate(command);
+            if (parts != null) {
+                ProcessBuilder processBuilder = new ProcessBuilder(parts);
+                Process process = processBuilder.start();
+                return readProcessOutput(process);
             }
 
             return "Command not allowed";
@@ -94,14 +89,8 @@ public class CommandService {
      * 辅助方法：读取进程输出
      */
     private String readProcessOutput(Process process) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            StringBuilder output = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
-            }
-            return output.toString();
-        }
+        // 统一的执行超时处理：超时后销毁进程树
+        return CommandUtils.readProcessOutput(process);
     }
 
     /**
@@ -0,0 +1,160 @@
+package edu.thu.benchmark.annotated.service;
+
+import edu.thu.benchmark.annotated.util.PathGuard;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 配置文件服务类
+ * 缓存解析后的属性文件，以验证后的真实路径为键，按修改时间和大小重新验证，
+ * 返回在请求间共享的不可变Map
+ */
+@Service
+public class ConfigFileService {
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    @Value("${config.cache.max-entries:1024}")
+    private int maxEntries;
+
+    @Value("${config.cache.revalidate-interval:1000}")
+    private long revalidateMillis;
+
+    private final PathGuard pathGuard = PathGuard.getInstance();
+
+    private final Map<String, CachedProperties> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 安全的属性文件读取实现
+     * 验证文件（含符号链接）位于配置目录内
+     *
+     * @param configDir 配置目录
+     * @param fileName 用户提供的文件名
+     * @return 不可变的属性Map
+     */
+    public Map<String, String> loadPropertiesSafe(String configDir, String fileName) throws IOException {
+        Path file = pathGuard.resolveFile(configDir, fileName);
+        return load(file.toString(), file);
+    }
+
+    /**
+     * 从类路径读取属性文件
+     * 资源位于文件系统时按修改时间重新验证，位于jar包中时内容不会变化
+     *
+     * @param location 类路径中的资源位置
+     * @return 不可变的属性Map
+     */
+    public Map<String, String> loadClasspathProperties(String location) throws IOException {
+        String key = CLASSPATH_PREFIX + location;
+        CachedProperties cached = cache.get(key);
+        if (cached != null) {
+            return cached.file == null ? cached.properties : load(key, cached.file);
+        }
+
+        ClassPathResource resource = new ClassPathResource(location);
+        if (resource.isFile()) {
+            return load(key, resource.getFile().toPath());
+        }
+
+        Properties props = new Properties();
+        try (InputStream is = resource.getInputStream()) {
+            props.load(is);
+        }
+        CachedProperties loaded = new CachedProperties(toMap(props), null, 0, -1, System.nanoTime());
+        put(key, loaded);
+        return loaded.properties;
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+
+    private Map<String, String> load(String key, Path file) throws IOException {
+        CachedProperties cached = cache.get(key);
+        long now = System.nanoTime();
+        if (cached != null && now - cached.checkedAt < TimeUnit.MILLISECONDS.toNanos(revalidateMillis)) {
+            return cached.properties;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            cache.remove(key);
+            throw new FileNotFoundException(file + " (No such file or directory)");
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (cached != null && cached.lastModified == lastModified && cached.size == attributes.size()) {
+            cached.checkedAt = now;
+            return cached.properties;
+        }
+
+        // 文件已变化或未缓存，重新解析
+        Properties props = new Properties();
+        try (InputStream is = Files.newInputStream(file)) {
+            props.load(is);
+        }
+        CachedProperties loaded = new CachedProperties(toMap(props), file, lastModified, attributes.size(), now);
+        put(key, loaded);
+        return loaded.properties;
+    }
+
+    private void put(String key, CachedProperties loaded) {
+        if (cache.size() >= maxEntries && !cache.containsKey(key)) {
+            // 缓存已满时移除任意一项，配置文件数量通常远小于上限
+            Iterator<String> keys = cache.keySet().iterator();
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        cache.put(key, loaded);
+    }
+
+    private static Map<String, String> toMap(Properties props) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String name : props.stringPropertyNames()) {
+            map.put(name, props.getProperty(name));
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * 缓存的属性文件
+     */
+    private static final class CachedProperties {
+        private final Map<String, String> properties;
+        // 类路径jar包中的资源为null
+        private final Path file;
+        private final long lastModified;
+        private final long size;
+        private volatile long checkedAt;
+
+        CachedProperties(Map<String, String> properties, Path file, long lastModified, long size, long checkedAt) {
+            this.properties = properties;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.size = size;
+            this.checkedAt = checkedAt;
+        }
+    }
+}
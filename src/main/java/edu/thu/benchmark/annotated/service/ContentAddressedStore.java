@@ -0,0 +1,274 @@
+package edu.thu.benchmark.annotated.service;
+
+import edu.thu.benchmark.annotated.util.BufferPool;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内容寻址存储服务
+ * 上传内容在写入时计算SHA-256，按哈希前缀分两级目录保存为对象文件（objects/ab/cd/abcd...），
+ * 存储位置上的文件是指向对象的硬链接：内容相同的上传只增加一个链接，不再占用磁盘空间。
+ * 引用计数即对象的硬链接数，由文件系统维护并在重启后保持；删除存储位置上的文件即释放一个引用，
+ * 只剩对象自身一个链接时对象被回收。无法创建硬链接（如跨文件系统）时退化为复制。
+ * 去重只节省存储空间而不节省写入：重复内容仍先完整写入临时文件，算出哈希后才发现对象已存在。
+ * 不按客户端声明的摘要跳过写入，否则知道哈希的客户端无需持有内容就能取得对象的链接
+ */
+@Service
+public class ContentAddressedStore {
+
+    private static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+    @Value("${app.upload.cas.enabled:false}")
+    private boolean enabled;
+
+    // 对象目录，需要与上传目录位于同一文件系统才能使用硬链接
+    @Value("${app.upload.cas.dir:/var/uploads/.objects}")
+    private String objectDirectory;
+
+    // 回收无引用对象的间隔（毫秒）
+    @Value("${app.upload.cas.gc-interval:3600000}")
+    private long gcInterval;
+
+    // 临时文件超过该时间未修改即视为崩溃遗留（毫秒）
+    @Value("${app.upload.cas.tmp-max-age:3600000}")
+    private long tmpMaxAge;
+
+    private final BufferPool bufferPool = BufferPool.getInstance();
+
+    private ScheduledExecutorService collector;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        collector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "content-store-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        collector.scheduleWithFixedDelay(() -> {
+            try {
+                collectGarbage();
+            } catch (IOException e) {
+                System.err.println("Error collecting unreferenced objects: " + e.getMessage());
+            }
+        }, 0, gcInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 是否启用内容寻址存储
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 存储内容并在目标位置创建指向对象的链接
+     * 调用方必须先完成目标路径验证
+     *
+     * @param in 内容输入流，不会被关闭
+     * @param limit 允许的最大字节数
+     * @param target 目标文件
+     * @param replace 目标已存在时是否原子替换
+     * @return 内容的SHA-256（十六进制）
+     */
+    public String store(InputStream in, long limit, Path target, boolean replace) throws IOException {
+        Path tempDirectory = Files.createDirectories(Paths.get(objectDirectory, "tmp"));
+        Path temp = tempDirectory.resolve(UUID.randomUUID() + ".tmp");
+        try {
+            String hash = write(in, limit, temp);
+            Path object = objectPath(hash);
+            Files.createDirectories(object.getParent());
+
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    // 对象不存在时发布临时文件，已存在时即为重复内容，直接复用
+                    Files.createLink(object, temp);
+                } catch (FileAlreadyExistsException e) {
+                    // 重复内容
+                }
+                try {
+                    link(object, target, replace);
+                    return hash;
+                } catch (NoSuchFileException e) {
+                    // 对象恰好在发布后被回收，重新发布
+                    if (attempt == MAX_PUBLISH_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 释放对象：存储位置上的文件删除后调用，对象不再被引用时删除对象
+     *
+     * @param hash 内容的SHA-256
+     * @return 对象是否被删除
+     */
+    public boolean release(String hash) throws IOException {
+        if (hash == null || !hash.matches("[0-9a-f]{64}")) {
+            return false;
+        }
+        return deleteIfUnreferenced(objectPath(hash));
+    }
+
+    /**
+     * 清理遗留的临时文件，再回收所有不再被引用的对象；启动时和之后每隔gcInterval执行一次
+     * 并发存储与回收之间没有锁：对象被删除时已创建的链接仍然指向原内容，不会丢失数据
+     *
+     * @return 回收的对象数
+     */
+    public int collectGarbage() throws IOException {
+        Path root = Paths.get(objectDirectory);
+        if (!Files.isDirectory(root)) {
+            return 0;
+        }
+        sweepTemp(root.resolve("tmp"));
+        int collected = 0;
+        try (DirectoryStream<Path> level1 = Files.newDirectoryStream(root, "[0-9a-f][0-9a-f]")) {
+            for (Path first : level1) {
+                try (DirectoryStream<Path> level2 = Files.newDirectoryStream(first)) {
+                    for (Path second : level2) {
+                        try (DirectoryStream<Path> objects = Files.newDirectoryStream(second)) {
+                            for (Path object : objects) {
+                                if (deleteIfUnreferenced(object)) {
+                                    collected++;
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * 删除长时间未修改的临时文件
+     * 进程在发布对象后、删除临时文件前崩溃时，临时文件与对象互为硬链接，对象的链接数不会降到1，永远不会被回收
+     */
+    private void sweepTemp(Path tempDirectory) throws IOException {
+        if (!Files.isDirectory(tempDirectory)) {
+            return;
+        }
+        long cutoff = System.currentTimeMillis() - tmpMaxAge;
+        try (DirectoryStream<Path> temps = Files.newDirectoryStream(tempDirectory, "*.tmp")) {
+            for (Path temp : temps) {
+                try {
+                    // 正在写入的临时文件修改时间不断更新，不会被误删
+                    if (Files.getLastModifiedTime(temp).toMillis() < cutoff) {
+                        Files.deleteIfExists(temp);
+                    }
+                } catch (NoSuchFileException e) {
+                    // 已被存储线程删除
+                } catch (IOException e) {
+                    System.err.println("Error deleting stale temp file " + temp + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private boolean deleteIfUnreferenced(Path object) throws IOException {
+        Object links;
+        try {
+            links = Files.getAttribute(object, "unix:nlink");
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            // 无法获取链接数时保留对象
+            return false;
+        }
+        return links instanceof Integer && (Integer) links <= 1 && Files.deleteIfExists(object);
+    }
+
+    /**
+     * 将输入流写入临时文件并计算SHA-256
+     */
+    private String write(InputStream in, long limit, Path temp) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = bufferPool.acquire();
+        try (OutputStream out = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE)) {
+            long written = 0;
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                written += len;
+                if (written > limit) {
+                    throw new IllegalArgumentException("文件大小超过限制");
+                }
+                digest.update(buffer, 0, len);
+                out.write(buffer, 0, len);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * 在目标位置创建指向对象的硬链接，无法创建硬链接时复制
+     */
+    private void link(Path object, Path target, boolean replace) throws IOException {
+        Path linkPath = replace ? target.resolveSibling("." + UUID.randomUUID() + ".link") : target;
+        try {
+            Files.createLink(linkPath, object);
+        } catch (NoSuchFileException | FileAlreadyExistsException e) {
+            throw e;
+        } catch (FileSystemException | UnsupportedOperationException e) {
+            // 跨文件系统或不支持硬链接
+            Files.copy(object, linkPath);
+        }
+        if (replace) {
+            try {
+                Files.move(linkPath, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(linkPath);
+            }
+        }
+    }
+
+    private Path objectPath(String hash) {
+        return Paths.get(objectDirectory, hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (collector != null) {
+            collector.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package edu.thu.benchmark.annotated.service;
+
+import edu.thu.benchmark.annotated.entity.FileInfo;
+import edu.thu.benchmark.annotated.util.AsyncBatchWriter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 文件元数据持久化服务
+ * 存储和删除操作放入异步批量写入器，由后台线程按提交顺序批量写入files表，上传请求不等待数据库；
+ * 缓冲区已满时调用线程等待空位而不是绕过队列直接写入，避免删除先于排队中的插入写入后记录在重启时复活
+ */
+@Service
+// 启动加载依赖schema.sql创建的files表
+@DependsOn("dataSourceInitializer")
+public class FileMetadataService {
+
+    private static final String INSERT_SQL = "INSERT INTO files "
+            + "(id, filename, filepath, content_type, size, upload_time, content_hash) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String DELETE_SQL = "DELETE FROM files WHERE id = ?";
+
+    private static final String SELECT_SQL = "SELECT id, filename, filepath, content_type, size, upload_time, "
+            + "content_hash FROM files ORDER BY id";
+
+    // 与files表的列长度保持一致
+    private static final int MAX_CONTENT_TYPE_LENGTH = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${app.upload.metadata.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.upload.metadata.capacity:8192}")
+    private int capacity;
+
+    @Value("${app.upload.metadata.batch-size:256}")
+    private int batchSize;
+
+    // 启动时加载记录的JDBC fetch size
+    @Value("${app.upload.metadata.fetch-size:1000}")
+    private int fetchSize;
+
+    private AsyncBatchWriter<Operation> writer;
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            writer = new AsyncBatchWriter<>("file-metadata-writer", capacity, batchSize, 1000, this::writeBatch);
+        }
+    }
+
+    /**
+     * 记录一次文件存储，只做入队，不访问数据库
+     */
+    public void recordStored(FileInfo fileInfo) {
+        submit(new Operation(fileInfo, false));
+    }
+
+    /**
+     * 记录一次文件删除，只做入队，不访问数据库
+     */
+    public void recordDeleted(FileInfo fileInfo) {
+        submit(new Operation(fileInfo, true));
+    }
+
+    /**
+     * 在一次流式查询中按ID顺序读取全部文件记录
+     *
+     * @param consumer 逐条接收文件信息
+     * @return 读取的记录数
+     */
+    public int loadAll(Consumer<FileInfo> consumer) {
+        if (!enabled) {
+            return 0;
+        }
+        int[] count = new int[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(SELECT_SQL);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            FileInfo fileInfo = new FileInfo();
+            fileInfo.setId(rs.getInt("id"));
+            fileInfo.setFilename(rs.getString("filename"));
+            fileInfo.setFilepath(rs.getString("filepath"));
+            fileInfo.setContentType(rs.getString("content_type"));
+            long size = rs.getLong("size");
+            fileInfo.setSize(rs.wasNull() ? null : size);
+            Timestamp uploadTime = rs.getTimestamp("upload_time");
+            fileInfo.setUploadTime(uploadTime != null ? uploadTime.toLocalDateTime() : null);
+            fileInfo.setContentHash(rs.getString("content_hash"));
+            consumer.accept(fileInfo);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    private void submit(Operation operation) {
+        if (writer == null) {
+            return;
+        }
+        if (!writer.put(operation)) {
+            // 写入器已关闭（应用停止中），排队的操作已全部写入，可以直接同步写入
+            try {
+                writeBatch(Collections.singletonList(operation));
+            } catch (RuntimeException e) {
+                System.err.println("Error writing file metadata " + operation.fileInfo.getId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 后台线程：按提交顺序把连续的同类操作合并为一次JDBC批量操作
+     * 与写入器关闭后的同步写入互斥
+     */
+    private synchronized void writeBatch(List<Operation> batch) {
+        List<FileInfo> run = new ArrayList<>();
+        boolean deleting = false;
+        for (Operation operation : batch) {
+            if (operation.delete != deleting && !run.isEmpty()) {
+                flush(run, deleting);
+                run.clear();
+            }
+            deleting = operation.delete;
+            run.add(operation.fileInfo);
+        }
+        if (!run.isEmpty()) {
+            flush(run, deleting);
+        }
+    }
+
+    private void flush(List<FileInfo> run, boolean delete) {
+        if (delete) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, run, run.size(), (ps, fileInfo) -> ps.setInt(1, fileInfo.getId()));
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, run, run.size(), (ps, fileInfo) -> {
+            ps.setInt(1, fileInfo.getId());
+            ps.setString(2, fileInfo.getFilename());
+            ps.setString(3, fileInfo.getFilepath());
+            ps.setString(4, truncate(fileInfo.getContentType(), MAX_CONTENT_TYPE_LENGTH));
+            ps.setObject(5, fileInfo.getSize());
+            ps.setTimestamp(6, fileInfo.getUploadTime() != null ? Timestamp.valueOf(fileInfo.getUploadTime()) : null);
+            ps.setString(7, fileInfo.getContentHash());
+        });
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * 获取尚未写入数据库的操作数
+     */
+    public int getPendingCount() {
+        return writer != null ? writer.getPendingCount() : 0;
+    }
+
+    /**
+     * 待写入的存储或删除操作
+     */
+    private static final class Operation {
+        private final FileInfo fileInfo;
+        private final boolean delete;
+
+        Operation(FileInfo fileInfo, boolean delete) {
+            this.fileInfo = fileInfo;
+            this.delete = delete;
+        }
+    }
+}
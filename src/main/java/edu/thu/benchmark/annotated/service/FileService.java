@@ -48,10 +48,17 @@ public interface FileService {
 
     /**
      * 获取所有文件信息
-     * @return 文件信息列表
+     * @return 按ID排序的不可修改的文件信息列表
      */
     List<FileInfo> getAllFiles();
 
+    /**
+     * 根据文件名获取最近一次存储的文件信息
+     * @param filename 文件名
+     * @return 文件信息，不存在时返回null
+     */
+    FileInfo findByFilename(String filename);
+
     /**
      * 删除文件
      * @param id 文件ID
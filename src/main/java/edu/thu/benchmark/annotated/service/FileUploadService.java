@@ -3,15 +3,22 @@ package edu.thu.benchmark.annotated.service;
 import edu.thu.benchmark.annotated.annotation.Vulnerability;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityLevel;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityType;
+import edu.thu.benchmark.annotated.util.BufferPool;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.UUID;
 
 /**
@@ -33,6 +40,11 @@ public class FileUploadService {
     @Value("${app.upload.allowed-extensions}")
     private String allowedExtensions;
 
+    private final BufferPool bufferPool = BufferPool.getInstance();
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
     /**
      * 不安全的文件上传方法
      * 直接使用用户提供的文件名
@@ -56,7 +68,7 @@ public class FileUploadService {
         Path filePath = Paths.get(uploadDirectory, fileName);
 
         // 保存文件
-        Files.write(filePath, file.getBytes());
+        writeAtomically(file, filePath, Long.MAX_VALUE);
 
         return filePath.toString();
     }
@@ -92,11 +104,55 @@ public class FileUploadService {
 
         // 保存文件
         Path filePath = Paths.get(uploadDirectory, safeFileName);
-        Files.write(filePath, file.getBytes());
+        if (contentStore.isEnabled()) {
+            // 内容相同的上传共享同一个对象文件
+            try (InputStream in = file.getInputStream()) {
+                contentStore.store(in, maxFileSize, filePath, false);
+            }
+        } else {
+            writeAtomically(file, filePath, maxFileSize);
+        }
 
         return filePath.toString();
     }
 
+    /**
+     * 将上传内容流式写入同目录下的临时文件，写完后原子移动到目标位置
+     * 写入过程中失败或超出大小限制时删除临时文件，目标位置不会出现不完整的文件
+     *
+     * @param file 上传的文件
+     * @param target 目标文件
+     * @param limit 允许写入的最大字节数
+     */
+    private void writeAtomically(MultipartFile file, Path target, long limit) throws IOException {
+        // 临时文件与目标位于同一目录，保证可以原子移动；
+        // 不使用createTempFile，它以0600权限创建文件，移动后上传文件不再具有umask决定的默认权限
+        Path temp = target.toAbsolutePath().resolveSibling(".upload-" + UUID.randomUUID() + ".tmp");
+        byte[] buffer = bufferPool.acquire();
+        try {
+            try (InputStream in = file.getInputStream();
+                 FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+                         StandardOpenOption.WRITE)) {
+                long written = 0;
+                int len;
+                while ((len = in.read(buffer)) > 0) {
+                    written += len;
+                    if (written > limit) {
+                        throw new IllegalArgumentException("文件大小超过限制");
+                    }
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, len);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                }
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            bufferPool.release(buffer);
+            Files.deleteIfExists(temp);
+        }
+    }
+
     /**
      * 检查文件类型是否允许
      */
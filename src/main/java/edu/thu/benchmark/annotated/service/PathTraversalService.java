@@ -1,5 +1,10 @@
 package edu.thu.benchmark.annotated.service;
 
+import edu.thu.benchmark.annotated.entity.DirectoryPage;
+import edu.thu.benchmark.annotated.entity.FilePage;
+import edu.thu.benchmark.annotated.util.DirectoryLister;
+import edu.thu.benchmark.annotated.util.FilePageReader;
+import edu.thu.benchmark.annotated.util.PathGuard;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -7,9 +12,11 @@ import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * 路径遍历Service
@@ -21,6 +28,18 @@ public class PathTraversalService {
     @Value("${file.base.dir}")
     private String baseDir;
 
+    // 分页读取单页的最大行数和字节数
+    @Value("${file.page.max-lines:10000}")
+    private int maxPageLines;
+
+    @Value("${file.page.max-bytes:1048576}")
+    private int maxPageBytes;
+
+    @Value("${file.list.max-page-size:1000}")
+    private int maxListPageSize;
+
+    private final PathGuard pathGuard = PathGuard.getInstance();
+
     /**
      * 不安全的文件读取实现
      * 直接使用用户提供的路径而不验证
@@ -55,19 +74,7 @@ public class PathTraversalService {
     public String readFileSafe(String filePath) {
         StringBuilder content = new StringBuilder();
         try {
-            // 安全：规范化路径并验证
-            Path basePath = Paths.get(baseDir).toAbsolutePath().normalize();
-            Path resolvedPath = basePath.resolve(filePath).normalize();
-
-            // 验证最终路径是否在允许的目录内
-            if (!resolvedPath.startsWith(basePath)) {
-                throw new SecurityException("Access to the file is not allowed");
-            }
-
-            if (!Files.isRegularFile(resolvedPath)) {
-                throw new IOException("File not found or not a regular file");
-            }
-
+            Path resolvedPath = resolveFileSafe(filePath);
             content.append(new String(Files.readAllBytes(resolvedPath)));
         } catch (Exception e) {
             content.append("Error reading file: ").append(e.getMessage());
@@ -75,6 +82,59 @@ public class PathTraversalService {
         return content.toString();
     }
 
+    /**
+     * 安全的分页读取实现
+     * 从游标位置开始按行读取，单页不超过配置的行数和字节数
+     *
+     * @param filePath 用户提供的文件路径
+     * @param offset 起始字节偏移量（上一页的nextOffset）
+     * @param lines 读取的行数
+     * @return 读取结果
+     */
+    public FilePage readFileLinesSafe(String filePath, long offset, int lines) throws IOException {
+        return FilePageReader.read(resolveFileSafe(filePath), offset, pageLines(lines), maxPageBytes);
+    }
+
+    /**
+     * 安全的按字节分页读取实现
+     *
+     * @param filePath 用户提供的文件路径
+     * @param offset 起始字节偏移量（上一页的nextOffset）
+     * @param limit 读取的字节数
+     * @return 读取结果
+     */
+    public FilePage readFileBytesSafe(String filePath, long offset, int limit) throws IOException {
+        int maxBytes = Math.max(1, Math.min(limit, maxPageBytes));
+        return FilePageReader.read(resolveFileSafe(filePath), offset, Integer.MAX_VALUE, maxBytes);
+    }
+
+    /**
+     * 安全的文件末尾读取实现
+     *
+     * @param filePath 用户提供的文件路径
+     * @param lines 读取的行数
+     * @return 读取结果
+     */
+    public FilePage tailFileSafe(String filePath, int lines) throws IOException {
+        return FilePageReader.tail(resolveFileSafe(filePath), pageLines(lines), maxPageBytes);
+    }
+
+    private int pageLines(int lines) {
+        return Math.max(1, Math.min(lines, maxPageLines));
+    }
+
+    /**
+     * 安全的文件路径解析
+     * 规范化路径并验证文件位于基础目录内
+     *
+     * @param filePath 用户提供的文件路径
+     * @return 已验证的常规文件路径
+     */
+    public Path resolveFileSafe(String filePath) throws IOException {
+        // 安全：规范化路径并验证最终路径（含符号链接）位于允许的目录内
+        return pathGuard.resolveFile(baseDir, filePath);
+    }
+
     /**
      * 不安全的目录列表实现
      * 未验证用户提供的目录路径
@@ -97,24 +157,46 @@ public class PathTraversalService {
      */
     public String[] listFilesSafe(String dirPath) {
         try {
-            // 安全：规范化路径并验证
-            Path basePath = Paths.get(baseDir).toAbsolutePath().normalize();
-            Path resolvedPath = basePath.resolve(dirPath).normalize();
-
-            // 验证最终路径是否在允许的目录内
-            if (!resolvedPath.startsWith(basePath)) {
-                throw new SecurityException("Access to the directory is not allowed");
-            }
+            // 安全：规范化路径并验证最终路径（含符号链接）位于允许的目录内
+            Path resolvedPath = pathGuard.resolveDirectory(baseDir, dirPath);
 
-            if (!Files.isDirectory(resolvedPath)) {
-                throw new IOException("Directory not found");
+            List<String> names = new ArrayList<>();
+            try (DirectoryStream<Path> stream = DirectoryLister.open(resolvedPath, null)) {
+                for (Path path : stream) {
+                    names.add(path.getFileName().toString());
+                }
             }
-
-            return Files.list(resolvedPath)
-                    .map(path -> path.getFileName().toString())
-                    .toArray(String[]::new);
+            return names.toArray(new String[0]);
         } catch (Exception e) {
             return new String[]{"Error listing directory: " + e.getMessage()};
         }
     }
+
+    /**
+     * 安全的目录分页列表实现
+     * 目录项按名称排序，并附带类型、大小和修改时间
+     *
+     * @param dirPath 用户提供的目录路径
+     * @param glob 文件名过滤模式，为空时不过滤
+     * @param cursor 上一页的nextCursor，为空时从头开始
+     * @param limit 单页最大项数
+     * @return 当前页
+     */
+    public DirectoryPage listFilesPageSafe(String dirPath, String glob, String cursor, int limit) throws IOException {
+        Path resolvedPath = pathGuard.resolveDirectory(baseDir, dirPath);
+        int pageSize = Math.max(1, Math.min(limit, maxListPageSize));
+        return DirectoryLister.list(resolvedPath, glob, cursor, pageSize, true);
+    }
+
+    /**
+     * 安全的目录流打开实现
+     * 按目录顺序逐项遍历，不排序也不分页，调用方负责关闭返回的目录流
+     *
+     * @param dirPath 用户提供的目录路径
+     * @param glob 文件名过滤模式，为空时不过滤
+     * @return 目录流
+     */
+    public DirectoryStream<Path> openDirectorySafe(String dirPath, String glob) throws IOException {
+        return DirectoryLister.open(pathGuard.resolveDirectory(baseDir, dirPath), glob);
+    }
 }
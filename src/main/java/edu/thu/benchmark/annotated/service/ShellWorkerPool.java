@@ -0,0 +1,248 @@
+package edu.thu.benchmark.annotated.service;
+
+import edu.thu.benchmark.annotated.util.CommandUtils;
+import edu.thu.benchmark.annotated.util.ExecutionDeadline;
+import edu.thu.benchmark.annotated.util.ProcessTimeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻Shell工作进程池
+ * 预先启动若干个Shell进程，通过管道逐条发送命令并按帧读取输出，避免每次请求都付出fork+exec+bash初始化的开销
+ */
+@Service
+public class ShellWorkerPool {
+
+    /**
+     * 工作进程主循环：每条请求由以NUL结尾的帧标记和命令组成，
+     * 命令在子Shell中执行以隔离cd、变量等状态，执行结束后输出"帧标记 退出码"作为结束帧
+     */
+    private static final String WORKER_LOOP =
+            "while IFS= read -r -d '' __marker && IFS= read -r -d '' __command; do "
+                    + "( unset __marker; eval \"$__command\" ) </dev/null; "
+                    + "printf '%s %d\\n' \"$__marker\" $?; "
+                    + "done";
+
+    @Value("${app.command.executor}")
+    private String shellExecutable;
+
+    @Value("${app.command.pool.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.command.pool.size:4}")
+    private int poolSize;
+
+    // 使用受限Shell（bash -r）：禁止cd、输出重定向和带/的命令
+    @Value("${app.command.pool.restricted:true}")
+    private boolean restricted;
+
+    @Value("${app.command.pool.work-dir:/tmp}")
+    private String workDir;
+
+    @Value("${app.command.pool.acquire-timeout:5000}")
+    private long acquireTimeoutMillis;
+
+    private final LinkedBlockingQueue<ShellWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger liveWorkers = new AtomicInteger();
+
+    private volatile boolean shutdown;
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        for (int i = 0; i < poolSize; i++) {
+            try {
+                liveWorkers.incrementAndGet();
+                idleWorkers.offer(startWorker());
+            } catch (IOException e) {
+                liveWorkers.decrementAndGet();
+                System.err.println("Error starting shell worker: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 检查进程池是否启用
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 在空闲的工作进程中执行命令
+     *
+     * @param command 要执行的命令
+     * @return 命令的标准输出
+     */
+    public String execute(String command) throws IOException {
+        if (command.indexOf('\0') >= 0) {
+            throw new IllegalArgumentException("Command must not contain NUL characters");
+        }
+
+        ShellWorker worker = acquire();
+        boolean reusable = false;
+        // 超时后销毁整个工作进程树，该工作进程不再复用
+        try (ProcessTimeout timeout = worker.startTimeout(
+                ExecutionDeadline.remainingMillis(CommandUtils.DEFAULT_TIMEOUT_MILLIS))) {
+            try {
+                String output = worker.run(command);
+                reusable = !timeout.isExpired();
+                return output;
+            } catch (IOException e) {
+                if (timeout.isExpired()) {
+                    throw new InterruptedIOException("Command timed out after " + timeout.getTimeoutMillis() + " ms");
+                }
+                throw e;
+            }
+        } finally {
+            release(worker, reusable);
+        }
+    }
+
+    private ShellWorker acquire() throws IOException {
+        if (shutdown) {
+            throw new IOException("Shell worker pool is shut down");
+        }
+
+        ShellWorker worker = idleWorkers.poll();
+        if (worker != null) {
+            return worker;
+        }
+
+        // 池未满时直接补充新的工作进程
+        if (liveWorkers.incrementAndGet() <= poolSize) {
+            try {
+                return startWorker();
+            } catch (IOException e) {
+                liveWorkers.decrementAndGet();
+                throw e;
+            }
+        }
+        liveWorkers.decrementAndGet();
+
+        try {
+            worker = idleWorkers.poll(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a shell worker");
+        }
+        if (worker == null) {
+            throw new IOException("No shell worker available");
+        }
+        return worker;
+    }
+
+    private void release(ShellWorker worker, boolean reusable) {
+        if (reusable && !shutdown && worker.isAlive()) {
+            idleWorkers.offer(worker);
+        } else {
+            // 帧不完整或进程已退出时丢弃该工作进程，下次获取时重新创建
+            worker.destroy();
+            liveWorkers.decrementAndGet();
+        }
+    }
+
+    private ShellWorker startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(shellExecutable);
+        command.add("--norc");
+        command.add("--noprofile");
+        if (restricted) {
+            command.add("-r");
+        }
+        command.add("-c");
+        command.add(WORKER_LOOP);
+
+        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        processBuilder.directory(new File(workDir));
+        processBuilder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        return new ShellWorker(processBuilder.start());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        ShellWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.destroy();
+            liveWorkers.decrementAndGet();
+        }
+    }
+
+    /**
+     * 单个常驻Shell进程，同一时刻只处理一条命令
+     */
+    private static final class ShellWorker {
+
+        private final Process process;
+        private final BufferedWriter stdin;
+        private final BufferedReader stdout;
+
+        ShellWorker(Process process) {
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            this.stdout = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        String run(String command) throws IOException {
+            // 每次请求使用随机帧标记，命令输出无法伪造结束帧
+            String marker = "__end_" + UUID.randomUUID().toString().replace("-", "");
+            stdin.write(marker);
+            stdin.write('\0');
+            stdin.write(command);
+            stdin.write('\0');
+            stdin.flush();
+
+            StringBuilder output = new StringBuilder();
+            String line;
+            while ((line = stdout.readLine()) != null) {
+                int markerIndex = line.indexOf(marker);
+                if (markerIndex >= 0) {
+                    // 命令输出没有以换行结尾时，结束帧会紧跟在最后一行之后
+                    if (markerIndex > 0) {
+                        output.append(line, 0, markerIndex).append("\n");
+                    }
+                    return output.toString();
+                }
+                output.append(line).append("\n");
+            }
+            throw new IOException("Shell worker exited unexpectedly");
+        }
+
+        ProcessTimeout startTimeout(long timeoutMillis) {
+            return ProcessTimeout.start(process, timeoutMillis);
+        }
+
+        boolean isAlive() {
+            return process.isAlive();
+        }
+
+        void destroy() {
+            try {
+                stdin.close();
+            } catch (IOException e) {
+                // 进程已退出，忽略
+            }
+            ProcessTimeout.destroyTree(process);
+        }
+    }
+}
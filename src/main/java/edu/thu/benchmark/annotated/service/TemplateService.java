@@ -1,13 +1,15 @@
 package edu.thu.benchmark.annotated.service;
 
+import edu.thu.benchmark.annotated.util.FileContentCache;
+import edu.thu.benchmark.annotated.util.PathGuard;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.regex.Pattern;
 
 /**
@@ -23,6 +25,21 @@ public class TemplateService {
     // 安全白名单模式，只允许字母、数字、下划线和连字符以及.html扩展名
     private static final Pattern SAFE_TEMPLATE_PATTERN = Pattern.compile("[a-zA-Z0-9_-]+\\.html");
 
+    @Value("${template.cache.max-bytes:16777216}")
+    private long cacheMaxBytes;
+
+    @Value("${template.cache.revalidate-interval:1000}")
+    private long cacheRevalidateMillis;
+
+    private final PathGuard pathGuard = PathGuard.getInstance();
+
+    private FileContentCache templateCache;
+
+    @PostConstruct
+    public void init() {
+        templateCache = new FileContentCache(cacheMaxBytes, cacheRevalidateMillis);
+    }
+
     /**
      * 不安全的模板获取实现
      * 直接使用用户提供的模板名而不验证
@@ -48,28 +65,39 @@ public class TemplateService {
      * @return 模板内容
      */
     public String getTemplateSafe(String templateName) {
+        try {
+            return templateCache.get(resolveTemplateSafe(templateName)).getText();
+        } catch (IOException e) {
+            return "Error loading template: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 安全的模板获取实现，返回UTF-8编码的内容
+     * 命中缓存时不访问磁盘，返回的数组可直接写入响应，调用方不得修改
+     *
+     * @param templateName 模板名称
+     * @return UTF-8编码的模板内容
+     */
+    public byte[] getTemplateBytesSafe(String templateName) throws IOException {
+        return templateCache.get(resolveTemplateSafe(templateName)).getBytes();
+    }
+
+    /**
+     * 安全的模板路径解析
+     * 验证模板名称并确保模板位于模板目录内
+     *
+     * @param templateName 模板名称
+     * @return 已验证的模板文件路径
+     */
+    public Path resolveTemplateSafe(String templateName) throws IOException {
         // 安全：白名单验证模板名称
         if (!SAFE_TEMPLATE_PATTERN.matcher(templateName).matches()) {
             throw new SecurityException("Invalid template name");
         }
 
-        try {
-            Path basePath = Paths.get(templateDir).toAbsolutePath().normalize();
-            Path templatePath = basePath.resolve(templateName).normalize();
-
-            // 验证模板路径是否在预期目录内
-            if (!templatePath.startsWith(basePath)) {
-                throw new SecurityException("Access to the template is not allowed");
-            }
-
-            if (!Files.isRegularFile(templatePath)) {
-                throw new IOException("Template not found");
-            }
-
-            return new String(Files.readAllBytes(templatePath));
-        } catch (IOException e) {
-            return "Error loading template: " + e.getMessage();
-        }
+        // 验证模板路径（含符号链接）是否在预期目录内
+        return pathGuard.resolveFile(templateDir, templateName);
     }
 
     /**
@@ -103,19 +131,10 @@ public class TemplateService {
         }
 
         try {
-            Path basePath = Paths.get(templateDir).toAbsolutePath().normalize();
-            Path templateFullPath = basePath.resolve(templatePath).normalize();
-
-            // 验证模板路径是否在预期目录内
-            if (!templateFullPath.startsWith(basePath)) {
-                throw new SecurityException("Access to the template is not allowed");
-            }
-
-            if (!Files.isRegularFile(templateFullPath)) {
-                throw new IOException("Template not found");
-            }
+            // 验证模板路径（含符号链接）是否在预期目录内
+            Path templateFullPath = pathGuard.resolveFile(templateDir, templatePath);
 
-            return new String(Files.readAllBytes(templateFullPath));
+            return templateCache.get(templateFullPath).getText();
         } catch (IOException e) {
             return "Error loading template: " + e.getMessage();
         }
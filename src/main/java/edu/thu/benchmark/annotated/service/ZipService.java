@@ -1,15 +1,36 @@
 package edu.thu.benchmark.annotated.service;
 
+import edu.thu.benchmark.annotated.entity.ZipEntryInfo;
+import edu.thu.benchmark.annotated.entity.ZipEntryPage;
+import edu.thu.benchmark.annotated.entity.ZipExtractionResult;
+import edu.thu.benchmark.annotated.util.BufferPool;
+import edu.thu.benchmark.annotated.util.PathGuard;
+import edu.thu.benchmark.annotated.util.TextDecoder;
+import edu.thu.benchmark.annotated.util.ZipExtractor;
+import edu.thu.benchmark.annotated.util.ZipFileCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
+import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -26,6 +47,71 @@ public class ZipService {
     @Value("${zip.extract.dir}")
     private String extractDir;
 
+    private final PathGuard pathGuard = PathGuard.getInstance();
+
+    private final BufferPool bufferPool = BufferPool.getInstance();
+
+    // 单个ZIP文件解压的并行度（含调用线程）
+    @Value("${zip.extract.threads:4}")
+    private int extractThreads;
+
+    private ExecutorService extractExecutor;
+
+    // 单个ZIP文件解压后的总字节数上限
+    @Value("${zip.extract.max-bytes:1073741824}")
+    private long extractMaxBytes;
+
+    // 单个ZIP文件的条目数上限
+    @Value("${zip.extract.max-entries:10000}")
+    private int extractMaxEntries;
+
+    // 单个条目的压缩比上限
+    @Value("${zip.extract.max-ratio:100}")
+    private int extractMaxRatio;
+
+    // 条目路径深度上限
+    @Value("${zip.extract.max-depth:32}")
+    private int extractMaxDepth;
+
+    private ZipExtractor.Limits extractLimits;
+
+    // 同时保持打开的ZIP文件句柄上限
+    @Value("${zip.handle-cache.max-open:64}")
+    private int handleCacheMaxOpen;
+
+    // 句柄空闲多久后关闭（毫秒）
+    @Value("${zip.handle-cache.idle-timeout:60000}")
+    private long handleCacheIdleTimeout;
+
+    private ZipFileCache zipFileCache;
+
+    // 条目列表单页最大条目数
+    @Value("${zip.list.max-page-size:1000}")
+    private int listMaxPageSize;
+
+    // 单次打包下载的文件数上限
+    @Value("${zip.download.max-files:1000}")
+    private int downloadMaxFiles;
+
+    @PostConstruct
+    public void init() {
+        zipFileCache = new ZipFileCache(handleCacheMaxOpen, handleCacheIdleTimeout);
+        extractLimits = new ZipExtractor.Limits(extractMaxBytes, extractMaxEntries, extractMaxRatio, extractMaxDepth);
+        if (extractThreads > 1) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            // 不排队：线程都在忙时立即拒绝，由调用线程以较低的并行度继续解压，
+            // 避免并发解压的工作线程在队列中互相等待
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(extractThreads, extractThreads,
+                    60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "zip-extract-" + threadCounter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            extractExecutor = executor;
+        }
+    }
+
     /**
      * 不安全的ZIP条目获取实现
      * 从ZIP文件中获取条目但不验证路径
@@ -35,9 +121,8 @@ public class ZipService {
      * @return 条目内容
      */
     public String getZipEntryUnsafe(String zipFilePath, String entryName) {
-        try {
-            // 不安全：直接使用用户提供的ZIP文件路径
-            ZipFile zipFile = new ZipFile(new File(baseDir, zipFilePath));
+        // 不安全：直接使用用户提供的ZIP文件路径
+        try (ZipFile zipFile = new ZipFile(new File(baseDir, zipFilePath))) {
             ZipEntry entry = zipFile.getEntry(entryName);
 
             if (entry == null) {
@@ -45,15 +130,16 @@ public class ZipService {
             }
 
             StringBuilder content = new StringBuilder();
+            byte[] buffer = bufferPool.acquire();
             try (InputStream is = zipFile.getInputStream(entry)) {
-                byte[] buffer = new byte[1024];
                 int len;
                 while ((len = is.read(buffer)) > 0) {
                     content.append(new String(buffer, 0, len));
                 }
+            } finally {
+                bufferPool.release(buffer);
             }
 
-            zipFile.close();
             return content.toString();
         } catch (IOException e) {
             return "Error reading ZIP entry: " + e.getMessage();
@@ -70,48 +156,102 @@ public class ZipService {
      */
     public String getZipEntrySafe(String zipFilePath, String entryName) {
         try {
-            // 安全：规范化路径并验证
-            Path basePath = Paths.get(baseDir).toAbsolutePath().normalize();
-            Path zipPath = basePath.resolve(zipFilePath).normalize();
-
-            // 验证ZIP文件路径是否在预期目录内
-            if (!zipPath.startsWith(basePath)) {
-                throw new SecurityException("Access to the ZIP file is not allowed");
-            }
-
-            if (!Files.isRegularFile(zipPath)) {
-                throw new IOException("ZIP file not found");
-            }
+            // 安全：规范化路径并验证ZIP文件路径（含符号链接）是否在预期目录内
+            Path zipPath = pathGuard.resolveFile(baseDir, zipFilePath);
 
             // 验证条目名称不包含路径遍历字符
             if (entryName.contains("..")) {
                 throw new SecurityException("Invalid ZIP entry path");
             }
 
-            ZipFile zipFile = new ZipFile(zipPath.toFile());
-            ZipEntry entry = zipFile.getEntry(entryName);
+            // 复用已打开的句柄，避免每次请求重新解析中央目录
+            try (ZipFileCache.Handle handle = zipFileCache.acquire(zipPath)) {
+                ZipFile zipFile = handle.getZipFile();
+                ZipEntry entry = zipFile.getEntry(entryName);
 
-            if (entry == null) {
-                zipFile.close();
-                return "Entry not found";
-            }
+                if (entry == null) {
+                    return "Entry not found";
+                }
 
-            StringBuilder content = new StringBuilder();
-            try (InputStream is = zipFile.getInputStream(entry)) {
-                byte[] buffer = new byte[1024];
-                int len;
-                while ((len = is.read(buffer)) > 0) {
-                    content.append(new String(buffer, 0, len));
+                // 使用同一个解码器逐块解码，多字节字符不会在块边界处被拆分
+                try (InputStream is = zipFile.getInputStream(entry)) {
+                    return TextDecoder.decode(is, StandardCharsets.UTF_8, entry.getSize());
                 }
             }
-
-            zipFile.close();
-            return content.toString();
         } catch (Exception e) {
             return "Error reading ZIP entry: " + e.getMessage();
         }
     }
 
+    /**
+     * 安全的ZIP条目输出实现
+     * 将条目的原始字节直接写入输出流，不解码也不在内存中保存完整内容
+     *
+     * @param zipFilePath ZIP文件路径
+     * @param entryName 条目名称
+     * @param out 输出流，不会被关闭
+     * @return 写入的字节数
+     * @throws FileNotFoundException 条目不存在
+     */
+    public long writeZipEntrySafe(String zipFilePath, String entryName, OutputStream out) throws IOException {
+        // 安全：规范化路径并验证ZIP文件路径（含符号链接）是否在预期目录内
+        Path zipPath = pathGuard.resolveFile(baseDir, zipFilePath);
+
+        // 验证条目名称不包含路径遍历字符
+        if (entryName.contains("..")) {
+            throw new SecurityException("Invalid ZIP entry path");
+        }
+
+        try (ZipFileCache.Handle handle = zipFileCache.acquire(zipPath)) {
+            ZipEntry entry = handle.getZipFile().getEntry(entryName);
+            if (entry == null || entry.isDirectory()) {
+                throw new FileNotFoundException("Entry not found");
+            }
+            try (InputStream is = handle.getZipFile().getInputStream(entry)) {
+                return bufferPool.copy(is, out);
+            }
+        }
+    }
+
+    /**
+     * 安全的ZIP条目列表实现
+     * 只读取中央目录，不解压条目；按名称排序的条目索引随文件句柄缓存，文件被替换后重新构建
+     *
+     * @param zipFilePath ZIP文件路径
+     * @param cursor 上一页返回的nextCursor，为空时从第一个条目开始
+     * @param limit 单页条目数
+     * @return 条目分页列表
+     */
+    public ZipEntryPage listZipEntriesSafe(String zipFilePath, String cursor, int limit) throws IOException {
+        // 安全：规范化路径并验证ZIP文件路径（含符号链接）是否在预期目录内
+        Path zipPath = pathGuard.resolveFile(baseDir, zipFilePath);
+        int pageSize = Math.max(1, Math.min(limit, listMaxPageSize));
+
+        try (ZipFileCache.Handle handle = zipFileCache.acquire(zipPath)) {
+            List<ZipEntryInfo> index = handle.getEntryIndex();
+
+            // 二分查找第一个名称大于游标的条目
+            int from = 0;
+            if (cursor != null && !cursor.isEmpty()) {
+                int high = index.size();
+                while (from < high) {
+                    int mid = (from + high) >>> 1;
+                    if (index.get(mid).getName().compareTo(cursor) <= 0) {
+                        from = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+            }
+
+            int to = Math.min(index.size(), from + pageSize);
+            List<ZipEntryInfo> entries = new ArrayList<>(index.subList(from, to));
+            boolean hasMore = to < index.size();
+            String nextCursor = hasMore ? entries.get(entries.size() - 1).getName() : null;
+            return new ZipEntryPage(entries, nextCursor, hasMore);
+        }
+    }
+
     /**
      * 不安全的ZIP解压实现
      * 解压缩ZIP文件但不验证条目路径
@@ -146,11 +286,7 @@ public class ZipService {
 
                         try (InputStream is = zip.getInputStream(entry);
                              FileOutputStream fos = new FileOutputStream(entryFile)) {
-                            byte[] buffer = new byte[1024];
-                            int len;
-                            while ((len = is.read(buffer)) > 0) {
-                                fos.write(buffer, 0, len);
-                            }
+                            bufferPool.copy(is, fos);
                         }
                     }
                 } catch (IOException e) {
@@ -174,57 +310,64 @@ public class ZipService {
      */
     public String extractZipSafe(String zipFilePath) {
         try {
-            // 安全：规范化路径并验证
-            Path basePath = Paths.get(baseDir).toAbsolutePath().normalize();
-            Path zipPath = basePath.resolve(zipFilePath).normalize();
-
-            // 验证ZIP文件路径是否在预期目录内
-            if (!zipPath.startsWith(basePath)) {
-                throw new SecurityException("Access to the ZIP file is not allowed");
-            }
-
-            if (!Files.isRegularFile(zipPath)) {
-                throw new IOException("ZIP file not found");
-            }
-
-            ZipFile zip = new ZipFile(zipPath.toFile());
-
-            // 创建解压目录
-            Path extractDirPath = Paths.get(extractDir).toAbsolutePath().normalize();
-            if (!Files.exists(extractDirPath)) {
-                Files.createDirectories(extractDirPath);
-            }
-
-            // 安全：验证每个条目的路径不包含路径遍历模式
-            zip.stream().forEach(entry -> {
-                try {
-                    // 关键安全措施：规范化并验证条目路径
-                    Path entryPath = extractDirPath.resolve(entry.getName()).normalize();
+            extractZipWithReportSafe(zipFilePath);
+            return "ZIP file extracted successfully";
+        } catch (Exception e) {
+            return "Error extracting ZIP file: " + e.getMessage();
+        }
+    }
 
-                    // 验证最终路径是否在解压目录内
-                    if (!entryPath.startsWith(extractDirPath)) {
-                        throw new SecurityException("ZIP entry is outside of the target directory: " + entry.getName());
-                    }
+    /**
+     * 安全的并行ZIP解压实现
+     * 一次性创建目录树后由多个工作线程并行解压文件条目，每个条目的路径都经过验证
+     * 超出大小、条目数、压缩比或深度限制时中止解压并删除已创建的输出
+     *
+     * @param zipFilePath ZIP文件路径
+     * @return 解压结果，包含吞吐量
+     * @throws SecurityException 路径不在预期目录内或超出解压限制
+     */
+    public ZipExtractionResult extractZipWithReportSafe(String zipFilePath) throws IOException {
+        // 安全：规范化路径并验证ZIP文件路径（含符号链接）是否在预期目录内
+        Path zipPath = pathGuard.resolveFile(baseDir, zipFilePath);
 
-                    if (entry.isDirectory()) {
-                        Files.createDirectories(entryPath);
-                    } else {
-                        Files.createDirectories(entryPath.getParent());
+        // 安全：在ZipExtractor中验证每个条目的路径不包含路径遍历模式
+        Path extractDirPath = Paths.get(extractDir).toAbsolutePath().normalize();
+        return ZipExtractor.extract(zipPath, extractDirPath, extractExecutor, extractThreads, extractLimits);
+    }
 
-                        try (InputStream is = zip.getInputStream(entry)) {
-                            Files.copy(is, entryPath);
-                        }
-                    }
-                } catch (Exception e) {
-                    // 记录错误但继续处理其他条目
-                    System.err.println("Error extracting entry " + entry.getName() + ": " + e.getMessage());
-                }
-            });
+    /**
+     * 安全的打包下载文件解析
+     * 在开始写出响应前验证全部文件，返回的映射交给ZipStreamWriter打包
+     *
+     * @param filePaths 相对基础目录的文件路径
+     * @return 条目名称到文件真实路径的映射，重复的路径只保留一次
+     * @throws SecurityException 任一路径不在预期目录内或文件数超出上限
+     */
+    public Map<String, Path> resolveArchiveSourcesSafe(List<String> filePaths) throws IOException {
+        if (filePaths.size() > downloadMaxFiles) {
+            throw new SecurityException("Too many files requested: " + filePaths.size());
+        }
+        Path base = pathGuard.normalizedBase(baseDir);
+        Map<String, Path> sources = new LinkedHashMap<>();
+        for (String filePath : filePaths) {
+            // 安全：规范化路径并验证文件路径（含符号链接）是否在预期目录内
+            Path realPath = pathGuard.resolveFile(baseDir, filePath);
+
+            // 条目名称使用规范化后的相对路径，不包含..
+            String entryName = base.relativize(pathGuard.resolveLexical(baseDir, filePath))
+                    .toString().replace(File.separatorChar, '/');
+            sources.putIfAbsent(entryName, realPath);
+        }
+        return sources;
+    }
 
-            zip.close();
-            return "ZIP file extracted successfully";
-        } catch (Exception e) {
-            return "Error extracting ZIP file: " + e.getMessage();
+    @PreDestroy
+    public void shutdown() {
+        if (extractExecutor != null) {
+            extractExecutor.shutdownNow();
+        }
+        if (zipFileCache != null) {
+            zipFileCache.close();
         }
     }
 }
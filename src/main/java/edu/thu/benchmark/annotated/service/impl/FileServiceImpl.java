@@ -4,24 +4,37 @@ import edu.thu.benchmark.annotated.annotation.Vulnerability;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityLevel;
 import edu.thu.benchmark.annotated.annotation.VulnerabilityType;
 import edu.thu.benchmark.annotated.entity.FileInfo;
+import edu.thu.benchmark.annotated.service.ContentAddressedStore;
+import edu.thu.benchmark.annotated.service.FileMetadataService;
 import edu.thu.benchmark.annotated.service.FileService;
+import edu.thu.benchmark.annotated.util.BufferPool;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.annotation.PostConstruct;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class FileServiceImpl implements FileService {
@@ -30,14 +43,46 @@ public class FileServiceImpl implements FileService {
     private String uploadDir;
 
     private final Path rootLocation;
-    private final List<FileInfo> fileInfoList = new ArrayList<>();
+    // 文件信息注册表：按ID和文件名建立并发索引
+    private final Map<Integer, FileInfo> filesById = new ConcurrentHashMap<>();
+    private final Map<String, FileInfo> filesByName = new ConcurrentHashMap<>();
+    // 注册表版本号，每次变化后递增；getAllFiles的快照只在版本号未变时复用
+    private final AtomicLong registryVersion = new AtomicLong();
+    private volatile Snapshot snapshot;
     private final AtomicInteger fileIdCounter = new AtomicInteger(1);
+    private final BufferPool bufferPool = BufferPool.getInstance();
+
+    @Autowired
+    private ContentAddressedStore contentStore;
+
+    @Autowired
+    private FileMetadataService metadataService;
 
     public FileServiceImpl(@Value("${file.upload.dir:./uploads}") String uploadDir) {
         this.uploadDir = uploadDir;
         this.rootLocation = Paths.get(uploadDir);
     }
 
+    /**
+     * 启动时从files表加载文件信息，重建内存索引
+     */
+    @PostConstruct
+    public void loadRegistry() {
+        try {
+            int[] maxId = new int[1];
+            metadataService.loadAll(fileInfo -> {
+                filesById.put(fileInfo.getId(), fileInfo);
+                // 按ID顺序加载，同名文件保留最后一次存储
+                filesByName.put(fileInfo.getFilename(), fileInfo);
+                maxId[0] = Math.max(maxId[0], fileInfo.getId());
+            });
+            fileIdCounter.accumulateAndGet(maxId[0] + 1, Math::max);
+            registryVersion.incrementAndGet();
+        } catch (RuntimeException e) {
+            System.err.println("Error loading file records: " + e.getMessage());
+        }
+    }
+
     @Override
     public void init() throws IOException {
         Files.createDirectories(rootLocation);
@@ -63,8 +108,25 @@ public class FileServiceImpl implements FileService {
         }
 
         // 保存文件
-        try (InputStream inputStream = file.getInputStream()) {
-            Files.copy(inputStream, destinationFile, StandardCopyOption.REPLACE_EXISTING);
+        String contentHash = null;
+        if (contentStore.isEnabled()) {
+            // 同名文件被原子替换为指向新内容的链接
+            try (InputStream inputStream = file.getInputStream()) {
+                contentHash = contentStore.store(inputStream, Long.MAX_VALUE, destinationFile, true);
+            }
+        } else {
+            // 写入临时文件后原子替换：目标可能是启用内容寻址存储时留下的硬链接，原地写入会破坏共享对象
+            Path temp = destinationFile.resolveSibling("." + UUID.randomUUID() + ".tmp");
+            try {
+                try (InputStream inputStream = file.getInputStream();
+                     OutputStream outputStream = Files.newOutputStream(temp, StandardOpenOption.CREATE_NEW,
+                             StandardOpenOption.WRITE)) {
+                    bufferPool.copy(inputStream, outputStream);
+                }
+                Files.move(temp, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
         }
 
         // 创建文件信息对象
@@ -75,7 +137,8 @@ public class FileServiceImpl implements FileService {
                 file.getSize()
         );
         fileInfo.setId(fileIdCounter.getAndIncrement());
-        fileInfoList.add(fileInfo);
+        fileInfo.setContentHash(contentHash);
+        register(fileInfo);
 
         return fileInfo;
     }
@@ -97,10 +160,7 @@ public class FileServiceImpl implements FileService {
 
     @Override
     public Resource loadById(Integer id) {
-        FileInfo fileInfo = fileInfoList.stream()
-                .filter(info -> info.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        FileInfo fileInfo = id != null ? filesById.get(id) : null;
 
         if (fileInfo == null) {
             return null;
@@ -145,15 +205,27 @@ public class FileServiceImpl implements FileService {
 
     @Override
     public List<FileInfo> getAllFiles() {
-        return fileInfoList;
+        long version = registryVersion.get();
+        Snapshot current = snapshot;
+        if (current != null && current.version == version) {
+            return current.files;
+        }
+        // 重建期间注册表发生变化时，快照带有旧版本号，下次读取会再次重建
+        List<FileInfo> files = new ArrayList<>(filesById.values());
+        files.sort(Comparator.comparing(FileInfo::getId));
+        files = Collections.unmodifiableList(files);
+        snapshot = new Snapshot(version, files);
+        return files;
+    }
+
+    @Override
+    public FileInfo findByFilename(String filename) {
+        return filename != null ? filesByName.get(filename) : null;
     }
 
     @Override
     public boolean deleteFile(Integer id) {
-        FileInfo fileInfo = fileInfoList.stream()
-                .filter(info -> info.getId().equals(id))
-                .findFirst()
-                .orElse(null);
+        FileInfo fileInfo = id != null ? filesById.get(id) : null;
 
         if (fileInfo == null) {
             return false;
@@ -162,7 +234,11 @@ public class FileServiceImpl implements FileService {
         try {
             Path file = Paths.get(fileInfo.getFilepath());
             if (Files.deleteIfExists(file)) {
-                fileInfoList.remove(fileInfo);
+                unregister(fileInfo);
+                if (contentStore.isEnabled()) {
+                    // 删除链接后对象不再被引用时回收对象
+                    contentStore.release(fileInfo.getContentHash());
+                }
                 return true;
             }
             return false;
@@ -171,6 +247,35 @@ public class FileServiceImpl implements FileService {
         }
     }
 
+    private void register(FileInfo fileInfo) {
+        // 先提交插入再发布到索引：记录对deleteFile可见之前插入已经排队，删除不会先于插入写入
+        metadataService.recordStored(fileInfo);
+        filesById.put(fileInfo.getId(), fileInfo);
+        // 同名文件被覆盖，文件名索引指向最近一次存储
+        filesByName.put(fileInfo.getFilename(), fileInfo);
+        registryVersion.incrementAndGet();
+    }
+
+    private void unregister(FileInfo fileInfo) {
+        filesById.remove(fileInfo.getId(), fileInfo);
+        filesByName.remove(fileInfo.getFilename(), fileInfo);
+        registryVersion.incrementAndGet();
+        metadataService.recordDeleted(fileInfo);
+    }
+
+    /**
+     * 文件信息列表快照
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final List<FileInfo> files;
+
+        Snapshot(long version, List<FileInfo> files) {
+            this.version = version;
+            this.files = files;
+        }
+    }
+
     @Override
     public Path getFilePath(String filename) {
         return rootLocation.resolve(filename);
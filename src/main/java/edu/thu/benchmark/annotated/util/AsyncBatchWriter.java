@@ -0,0 +1,173 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 异步批量写入器
+ * 调用方只需将记录放入有界环形缓冲区，由单个后台线程按批次交给写入函数处理
+ *
+ * @param <T> 记录类型
+ */
+public class AsyncBatchWriter<T> implements AutoCloseable {
+
+    private final ArrayBlockingQueue<T> buffer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final Consumer<List<T>> sink;
+    private final Thread worker;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    /**
+     * @param name 后台线程名称
+     * @param capacity 缓冲区容量，写满后offer丢弃新记录，put等待空位
+     * @param batchSize 单批最大记录数
+     * @param flushIntervalMillis 空闲时轮询间隔
+     * @param sink 批量写入函数
+     */
+    public AsyncBatchWriter(String name, int capacity, int batchSize, long flushIntervalMillis,
+                            Consumer<List<T>> sink) {
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.sink = sink;
+        this.worker = new Thread(this::drainLoop, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 提交一条记录，不阻塞调用线程
+     *
+     * @return 缓冲区已满或写入器已关闭时返回false
+     */
+    public boolean offer(T record) {
+        if (!running || !buffer.offer(record)) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 提交一条记录，缓冲区已满时等待后台线程腾出空位
+     * 记录不会被丢弃，同一线程提交的记录按提交顺序写入；等待期间的中断在返回后恢复
+     *
+     * @return 写入器已关闭时返回false
+     */
+    public boolean put(T record) {
+        boolean interrupted = false;
+        try {
+            while (running) {
+                try {
+                    if (buffer.offer(record, flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            return false;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 后台线程：等待第一条记录后一次性取出缓冲区中已有的记录
+     */
+    private void drainLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty()) {
+            try {
+                T first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                flush(batch);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+        }
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            flush(batch);
+        }
+    }
+
+    private void flush(List<T> batch) {
+        try {
+            sink.accept(batch);
+            written.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            // 整批失败时按顺序逐条重试，只丢弃本身写不进去的记录
+            System.err.println("Error writing batch of " + batch.size() + " records, retrying one by one: "
+                    + e.getMessage());
+            for (T record : batch) {
+                try {
+                    sink.accept(Collections.singletonList(record));
+                    written.incrementAndGet();
+                } catch (RuntimeException recordError) {
+                    // 记录错误但不中断后台线程
+                    failed.incrementAndGet();
+                    System.err.println("Error writing record: " + recordError.getMessage());
+                }
+            }
+        } finally {
+            batch.clear();
+        }
+    }
+
+    /**
+     * 停止接收新记录，等待缓冲区中的记录写完
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            worker.join(flushIntervalMillis + 5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 获取因缓冲区已满而丢弃的记录数
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * 获取已写入的记录数
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * 获取逐条重试后仍写入失败的记录数
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * 获取缓冲区中待写入的记录数
+     */
+    public int getPendingCount() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,146 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 异步文件追加器
+ * 调用方只需将日志行放入AsyncBatchWriter的缓冲区，由后台线程保持文件通道打开并按批次追加写入，
+ * 文件超过指定大小时滚动为file.1、file.2...，关闭时写完缓冲区中的日志并刷新到磁盘
+ */
+public class AsyncFileAppender implements AutoCloseable {
+
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxBackups;
+    private final AsyncBatchWriter<String> writer;
+
+    // 以下字段只由后台线程访问，关闭时在后台线程结束后访问
+    private FileChannel channel;
+    private long size;
+
+    /**
+     * @param name 后台线程名称
+     * @param file 日志文件
+     * @param capacity 缓冲区容量，写满后新日志被丢弃
+     * @param maxFileSize 单个日志文件的最大字节数，0表示不滚动
+     * @param maxBackups 保留的历史文件数
+     */
+    public AsyncFileAppender(String name, Path file, int capacity, long maxFileSize, int maxBackups) {
+        this.file = file.toAbsolutePath().normalize();
+        this.maxFileSize = maxFileSize;
+        this.maxBackups = maxBackups;
+        this.writer = new AsyncBatchWriter<>(name, capacity, 512, 1000, this::writeBatch);
+    }
+
+    /**
+     * 追加一行日志，不阻塞调用线程
+     *
+     * @param line 日志内容，不含换行符
+     * @return 缓冲区已满或追加器已关闭时返回false
+     */
+    public boolean append(String line) {
+        return writer.offer(line);
+    }
+
+    /**
+     * 后台线程：将一批日志合并为一次写入
+     */
+    private synchronized void writeBatch(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+
+        try {
+            if (channel == null) {
+                open();
+            }
+            if (maxFileSize > 0 && size > 0 && size + buffer.remaining() > maxFileSize) {
+                rotate();
+            }
+            while (buffer.hasRemaining()) {
+                size += channel.write(buffer);
+            }
+        } catch (IOException e) {
+            // 记录错误但不中断后台线程，下一批重新打开文件
+            System.err.println("Error writing log file " + file + ": " + e.getMessage());
+            closeChannel();
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+
+    /**
+     * 滚动日志文件：file.(n-1) -> file.n，...，file -> file.1
+     */
+    private void rotate() throws IOException {
+        closeChannel();
+        if (maxBackups > 0) {
+            for (int i = maxBackups - 1; i >= 1; i--) {
+                Path source = backup(i);
+                if (Files.exists(source)) {
+                    Files.move(source, backup(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(file, backup(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(file);
+        }
+        open();
+    }
+
+    private Path backup(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing log file " + file + ": " + e.getMessage());
+        }
+        channel = null;
+    }
+
+    /**
+     * 停止接收新日志，写完缓冲区中的日志后刷新并关闭文件
+     */
+    @Override
+    public void close() {
+        writer.close();
+        synchronized (this) {
+            if (channel != null) {
+                try {
+                    channel.force(false);
+                } catch (IOException e) {
+                    System.err.println("Error flushing log file " + file + ": " + e.getMessage());
+                }
+                closeChannel();
+            }
+        }
+    }
+
+    /**
+     * 获取因缓冲区已满而丢弃的日志数
+     */
+    public long getDroppedCount() {
+        return writer.getDroppedCount();
+    }
+}
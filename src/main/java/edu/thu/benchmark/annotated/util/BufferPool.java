@@ -0,0 +1,168 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 复制缓冲区池
+ * 无锁的有界缓冲区池，service和util中的复制循环从池中借用64KB堆缓冲区，用完归还，
+ * 池为空时临时分配，池已满时直接丢弃。
+ * 不使用ThreadLocal：开启虚拟线程后每个请求都是新线程，ThreadLocal缓冲区无法复用。
+ */
+public final class BufferPool {
+
+    public static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final BufferPool INSTANCE =
+            new BufferPool(BUFFER_SIZE, Math.max(16, 4 * Runtime.getRuntime().availableProcessors()));
+
+    // JDK 21起提供的全部线程累计分配字节数（含已结束的线程），低版本运行时为null
+    private static final Method TOTAL_ALLOCATED_BYTES = findTotalAllocatedBytes();
+
+    private final int bufferSize;
+    private final AtomicReferenceArray<byte[]> slots;
+
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    BufferPool(int bufferSize, int capacity) {
+        this.bufferSize = bufferSize;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 获取共享实例
+     */
+    public static BufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 借用一个缓冲区，使用完毕后必须调用release归还
+     *
+     * @return 长度为BUFFER_SIZE的缓冲区，内容未清零
+     */
+    public byte[] acquire() {
+        acquired.increment();
+        int length = slots.length();
+        // 从随机位置开始查找，减少线程间在同一槽位上的竞争
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            byte[] buffer = slots.get(index);
+            if (buffer != null && slots.compareAndSet(index, buffer, null)) {
+                return buffer;
+            }
+        }
+        allocated.increment();
+        return new byte[bufferSize];
+    }
+
+    /**
+     * 归还缓冲区，归还后调用方不得再使用
+     */
+    public void release(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return;
+        }
+        int length = slots.length();
+        int start = ThreadLocalRandom.current().nextInt(length);
+        for (int i = 0; i < length; i++) {
+            int index = (start + i) % length;
+            if (slots.get(index) == null && slots.compareAndSet(index, null, buffer)) {
+                return;
+            }
+        }
+        discarded.increment();
+    }
+
+    /**
+     * 使用池中的缓冲区将输入流复制到输出流，不关闭任何一个流
+     *
+     * @return 复制的字节数
+     */
+    public long copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = acquire();
+        try {
+            long total = 0;
+            int len;
+            while ((len = in.read(buffer)) >= 0) {
+                out.write(buffer, 0, len);
+                total += len;
+            }
+            return total;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * 获取缓冲区池和JVM的分配统计
+     * 压测前后各取一次，比较allocatedBuffers与jvmAllocatedBytes、gcCount、gcTimeMillis的增量；
+     * 运行时不支持统计全部线程的累计分配时不返回jvmAllocatedBytes
+     */
+    public Map<String, Long> getStatistics() {
+        Map<String, Long> statistics = new LinkedHashMap<>();
+        long acquiredCount = acquired.sum();
+        long allocatedCount = allocated.sum();
+        statistics.put("bufferSize", (long) bufferSize);
+        statistics.put("acquired", acquiredCount);
+        statistics.put("reused", acquiredCount - allocatedCount);
+        statistics.put("allocatedBuffers", allocatedCount);
+        statistics.put("allocatedBytes", allocatedCount * bufferSize);
+        statistics.put("discarded", discarded.sum());
+
+        long jvmAllocatedBytes = totalAllocatedBytes();
+        if (jvmAllocatedBytes >= 0) {
+            statistics.put("jvmAllocatedBytes", jvmAllocatedBytes);
+        }
+
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(gcBean.getCollectionCount(), 0);
+            gcTime += Math.max(gcBean.getCollectionTime(), 0);
+        }
+        statistics.put("gcCount", gcCount);
+        statistics.put("gcTimeMillis", gcTime);
+        return statistics;
+    }
+
+    /**
+     * 全部线程的累计分配字节数
+     * 只统计存活线程时，压测期间结束的线程的分配会从总数中消失，增量不可靠，因此不支持时返回-1
+     */
+    private static long totalAllocatedBytes() {
+        if (TOTAL_ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (Long) TOTAL_ALLOCATED_BYTES.invoke(ManagementFactory.getThreadMXBean());
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static Method findTotalAllocatedBytes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        try {
+            return com.sun.management.ThreadMXBean.class.getMethod("getTotalThreadAllocatedBytes");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 命令参数验证器
+ * 在构造时一次性编译命令白名单和参数正则，避免每次请求重复编译正则表达式
+ */
+public class CommandArgumentValidator {
+
+    /**
+     * Shell元字符 ; & | ` \ " ' $ 的位图，0-63和64-127两段
+     */
+    private static final long META_LOW;
+    private static final long META_HIGH;
+
+    static {
+        long low = 0L;
+        long high = 0L;
+        for (char c : ";&|`\\\"'$".toCharArray()) {
+            if (c < 64) {
+                low |= 1L << c;
+            } else {
+                high |= 1L << (c - 64);
+            }
+        }
+        META_LOW = low;
+        META_HIGH = high;
+    }
+
+    private final Set<String> allowedCommands;
+    private final Pattern argumentPattern;
+
+    /**
+     * @param allowedCommands 允许执行的命令
+     * @param argumentPattern 参数必须完整匹配的正则，为空时只检查Shell元字符
+     */
+    public CommandArgumentValidator(Collection<String> allowedCommands, String argumentPattern) {
+        Set<String> commands = new LinkedHashSet<>();
+        for (String command : allowedCommands) {
+            String trimmed = command.trim();
+            if (!trimmed.isEmpty()) {
+                commands.add(trimmed);
+            }
+        }
+        this.allowedCommands = Collections.unmodifiableSet(commands);
+        this.argumentPattern = argumentPattern == null || argumentPattern.isEmpty()
+                ? null : Pattern.compile(argumentPattern);
+    }
+
+    /**
+     * 检查字符串是否包含Shell元字符
+     */
+    public static boolean containsShellMetacharacters(CharSequence value) {
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 64) {
+                if ((META_LOW & (1L << c)) != 0) {
+                    return true;
+                }
+            } else if (c < 128 && (META_HIGH & (1L << (c - 64))) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查命令是否在白名单中
+     */
+    public boolean isCommandAllowed(String command) {
+        return allowedCommands.contains(command);
+    }
+
+    /**
+     * 检查参数是否不含Shell元字符且匹配参数正则
+     */
+    public boolean isArgumentAllowed(String argument) {
+        if (containsShellMetacharacters(argument)) {
+            return false;
+        }
+        return argumentPattern == null || argumentPattern.matcher(argument).matches();
+    }
+
+    /**
+     * 验证完整命令
+     *
+     * @param command 用户输入的命令，格式为"命令 参数"
+     * @return 验证通过时返回ProcessBuilder可用的命令数组，否则返回null
+     */
+    public String[] validate(String command) {
+        String[] parts = command.split("\\s+", 2);
+        if (parts.length == 0 || !isCommandAllowed(parts[0])) {
+            return null;
+        }
+        if (parts.length == 2 && !isArgumentAllowed(parts[1])) {
+            return null;
+        }
+        return parts;
+    }
+
+    /**
+     * 获取命令白名单
+     */
+    public Set<String> getAllowedCommands() {
+        return allowedCommands;
+    }
+}
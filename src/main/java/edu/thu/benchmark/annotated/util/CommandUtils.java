@@ -3,8 +3,10 @@ package edu.thu.benchmark.annotated.util;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 命令执行工具类
@@ -12,7 +14,14 @@ import java.util.List;
  */
 public class CommandUtils {
 
+    /**
+     * 命令执行的默认超时时间（毫秒）
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+
     private static final List<String> ALLOWED_COMMANDS = Arrays.asList("ls", "echo", "cat", "pwd");
+
+    private static final CommandArgumentValidator VALIDATOR = new CommandArgumentValidator(ALLOWED_COMMANDS, null);
     
     /**
      * 不安全的命令执行方法 - 直接执行用户提供的命令
@@ -35,21 +44,12 @@ public class CommandUtils {
      */
     public static String executeSafe(String command) {
         try {
-            String[] parts = command.split("\\s+", 2);
-            
-            // 验证命令是否在白名单中
-            if (parts.length > 0 && ALLOWED_COMMANDS.contains(parts[0])) {
-                // 验证参数不包含危险字符
-                if (parts.length == 1 || !parts[1].matches(".*[;&|`\\\\\"'$].*")) {
-                    ProcessBuilder processBuilder = new ProcessBuilder();
-                    if (parts.length == 1) {
-                        processBuilder.command(parts[0]);
-                    } else {
-                        processBuilder.command(parts[0], parts[1]);
-                    }
-                    Process process = processBuilder.start();
-                    return readProcessOutput(process);
-                }
+            // 验证命令在白名单中且参数不包含危险字符
+            String[] parts = VALIDATOR.validate(command);
+            if (parts != null) {
+                ProcessBuilder processBuilder = new ProcessBuilder(parts);
+                Process process = processBuilder.start();
+                return readProcessOutput(process);
             }
             
             return "Command not allowed";
@@ -59,16 +59,52 @@ public class CommandUtils {
     }
     
     /**
-     * 辅助方法：读取进程输出
+     * 读取进程输出，超时时间取默认超时与当前请求剩余时间中的较小值
+     *
+     * @param process 要读取的进程
+     * @return 进程标准输出
+     */
+    public static String readProcessOutput(Process process) throws IOException {
+        return readProcessOutput(process, ExecutionDeadline.remainingMillis(DEFAULT_TIMEOUT_MILLIS));
+    }
+
+    /**
+     * 在限定时间内读取进程输出并等待进程结束
+     * 超时或线程被中断时销毁整个进程树
+     *
+     * @param process 要读取的进程
+     * @param timeoutMillis 超时时间（毫秒）
+     * @return 进程标准输出
+     * @throws InterruptedIOException 超时或线程被中断
      */
-    private static String readProcessOutput(Process process) throws IOException {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            StringBuilder output = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line).append("\n");
+    public static String readProcessOutput(Process process, long timeoutMillis) throws IOException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        try (ProcessTimeout timeout = ProcessTimeout.start(process, timeoutMillis)) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                StringBuilder output = new StringBuilder();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    output.append(line).append("\n");
+                }
+
+                // 输出流关闭后进程可能仍在运行，继续在剩余时间内等待其退出
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                if (timeout.isExpired() || !process.waitFor(remaining, TimeUnit.NANOSECONDS)) {
+                    timeout.destroy();
+                    throw new InterruptedIOException("Command timed out after " + timeoutMillis + " ms");
+                }
+                return output.toString();
+            } catch (InterruptedException e) {
+                timeout.destroy();
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Command execution interrupted");
+            } catch (IOException e) {
+                // 超时后看门狗关闭了输出流
+                if (timeout.isExpired()) {
+                    throw new InterruptedIOException("Command timed out after " + timeoutMillis + " ms");
+                }
+                throw e;
             }
-            return output.toString();
         }
     }
-} 
\ No newline at end of file
+}
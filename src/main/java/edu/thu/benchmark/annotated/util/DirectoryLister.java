@@ -0,0 +1,126 @@
+package edu.thu.benchmark.annotated.util;
+
+import edu.thu.benchmark.annotated.entity.DirectoryEntry;
+import edu.thu.benchmark.annotated.entity.DirectoryPage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 目录列表工具类
+ * 基于DirectoryStream逐项遍历目录，内存占用只与单页大小有关，与目录项总数无关
+ */
+public final class DirectoryLister {
+
+    private DirectoryLister() {
+    }
+
+    /**
+     * 检查文件名过滤模式的语法，为空时视为有效
+     */
+    public static boolean isValidGlob(String glob) {
+        if (glob == null || glob.isEmpty()) {
+            return true;
+        }
+        try {
+            FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            return true;
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 打开目录流
+     * 调用方必须先完成路径验证，并负责关闭返回的目录流
+     *
+     * @param dir 已验证的目录
+     * @param glob 文件名过滤模式，为空时不过滤
+     */
+    public static DirectoryStream<Path> open(Path dir, String glob) throws IOException {
+        if (glob == null || glob.isEmpty()) {
+            return Files.newDirectoryStream(dir);
+        }
+        return Files.newDirectoryStream(dir, glob);
+    }
+
+    /**
+     * 分页列出目录项
+     * 单次遍历目录，只保留名称大于游标的前limit项，结果按名称排序；
+     * 游标为名称而非位置，目录在分页期间发生变化时不会重复或遗漏未变化的项
+     *
+     * @param dir 已验证的目录
+     * @param glob 文件名过滤模式，为空时不过滤
+     * @param cursor 上一页的nextCursor，为空时从头开始
+     * @param limit 单页最大项数
+     * @param withAttributes 是否读取文件属性
+     * @return 当前页
+     */
+    public static DirectoryPage list(Path dir, String glob, String cursor, int limit,
+                                     boolean withAttributes) throws IOException {
+        // 大顶堆，保留最小的limit + 1个名称，多出的一项用于判断是否还有下一页
+        PriorityQueue<String> names = new PriorityQueue<>(limit + 1, Collections.reverseOrder());
+        try (DirectoryStream<Path> stream = open(dir, glob)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (cursor != null && name.compareTo(cursor) <= 0) {
+                    continue;
+                }
+                if (names.size() <= limit) {
+                    names.offer(name);
+                } else if (name.compareTo(names.peek()) < 0) {
+                    names.poll();
+                    names.offer(name);
+                }
+            }
+        }
+
+        boolean hasMore = names.size() > limit;
+        if (hasMore) {
+            names.poll();
+        }
+        List<String> sorted = new ArrayList<>(names);
+        Collections.sort(sorted);
+
+        List<DirectoryEntry> entries = new ArrayList<>(sorted.size());
+        for (String name : sorted) {
+            DirectoryEntry entry = withAttributes ? entry(dir.resolve(name)) : new DirectoryEntry(name);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        String nextCursor = hasMore && !sorted.isEmpty() ? sorted.get(sorted.size() - 1) : null;
+        return new DirectoryPage(entries, nextCursor, hasMore);
+    }
+
+    /**
+     * 读取目录项及其属性，不跟随符号链接
+     *
+     * @return 目录项，遍历期间已被删除时返回null
+     */
+    public static DirectoryEntry entry(Path path) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        DirectoryEntry entry = new DirectoryEntry(path.getFileName().toString());
+        entry.setDirectory(attributes.isDirectory());
+        entry.setSymbolicLink(attributes.isSymbolicLink());
+        entry.setSize(attributes.size());
+        entry.setLastModified(attributes.lastModifiedTime().toMillis());
+        return entry;
+    }
+}
@@ -0,0 +1,44 @@
+package edu.thu.benchmark.annotated.util;
+
+/**
+ * 当前线程的执行截止时间
+ * 由请求过滤器根据HTTP请求超时设置，命令执行时据此计算剩余可用时间
+ */
+public final class ExecutionDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private ExecutionDeadline() {
+    }
+
+    /**
+     * 设置当前线程的截止时间
+     *
+     * @param timeoutMillis 从现在开始的超时时间（毫秒）
+     */
+    public static void start(long timeoutMillis) {
+        DEADLINE_NANOS.set(System.nanoTime() + timeoutMillis * 1_000_000L);
+    }
+
+    /**
+     * 清除当前线程的截止时间
+     */
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * 计算剩余可用时间
+     *
+     * @param defaultTimeoutMillis 未设置截止时间时使用的超时时间，同时也是返回值的上限
+     * @return 剩余毫秒数，截止时间已过时返回0
+     */
+    public static long remainingMillis(long defaultTimeoutMillis) {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return defaultTimeoutMillis;
+        }
+        long remaining = (deadline - System.nanoTime()) / 1_000_000L;
+        return Math.max(0, Math.min(remaining, defaultTimeoutMillis));
+    }
+}
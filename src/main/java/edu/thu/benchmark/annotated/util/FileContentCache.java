@@ -0,0 +1,164 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文件内容缓存
+ * 按字节数限制容量的LRU缓存，缓存UTF-8编码的文件内容及其解码后的文本。
+ * 命中的条目在重新验证间隔内直接返回，不访问磁盘；超过间隔后比较修改时间和大小，变化时重新读取。
+ */
+public final class FileContentCache {
+
+    private final long maxBytes;
+    private final long revalidateNanos;
+
+    // 访问顺序的LinkedHashMap，最久未使用的条目位于头部
+    private final LinkedHashMap<Path, CachedFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * @param maxBytes 缓存内容的最大字节数
+     * @param revalidateMillis 重新验证间隔（毫秒），0表示每次访问都验证
+     */
+    public FileContentCache(long maxBytes, long revalidateMillis) {
+        this.maxBytes = maxBytes;
+        this.revalidateNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(revalidateMillis, 0));
+    }
+
+    /**
+     * 获取文件内容
+     * 调用方必须先完成路径验证
+     *
+     * @param file 已验证的常规文件
+     * @return 缓存的文件内容
+     */
+    public CachedFile get(Path file) throws IOException {
+        CachedFile cached;
+        synchronized (this) {
+            cached = entries.get(file);
+        }
+
+        long now = System.nanoTime();
+        if (cached != null && now - cached.checkedAt < revalidateNanos) {
+            return cached;
+        }
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            invalidate(file);
+            throw new IOException("File not found");
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (cached != null && cached.lastModified == lastModified && cached.bytes.length == attributes.size()) {
+            cached.checkedAt = now;
+            return cached;
+        }
+
+        // 文件已变化或未缓存，重新读取
+        CachedFile loaded = new CachedFile(FileUtils.readAllBytes(file), lastModified, now);
+        put(file, loaded);
+        return loaded;
+    }
+
+    /**
+     * 移除指定文件的缓存
+     */
+    public synchronized void invalidate(Path file) {
+        CachedFile removed = entries.remove(file);
+        if (removed != null) {
+            totalBytes -= removed.weight;
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        entries.clear();
+        totalBytes = 0;
+    }
+
+    /**
+     * 获取已缓存内容的字节数
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 获取缓存的文件数量
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private synchronized void put(Path file, CachedFile loaded) {
+        CachedFile previous = entries.remove(file);
+        if (previous != null) {
+            totalBytes -= previous.weight;
+        }
+        // 超过容量的单个文件不缓存
+        if (loaded.weight > maxBytes) {
+            return;
+        }
+        Iterator<Map.Entry<Path, CachedFile>> eldest = entries.entrySet().iterator();
+        while (totalBytes + loaded.weight > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().getValue().weight;
+            eldest.remove();
+        }
+        entries.put(file, loaded);
+        totalBytes += loaded.weight;
+    }
+
+    /**
+     * 缓存的文件内容
+     */
+    public static final class CachedFile {
+        private final byte[] bytes;
+        private final String text;
+        private final long lastModified;
+        private final long weight;
+        private volatile long checkedAt;
+
+        CachedFile(byte[] bytes, long lastModified, long checkedAt) {
+            this.bytes = bytes;
+            this.text = new String(bytes, StandardCharsets.UTF_8);
+            this.lastModified = lastModified;
+            // 同时计入编码后的字节和解码后的文本（每个char两个字节）
+            this.weight = bytes.length + 2L * text.length();
+            this.checkedAt = checkedAt;
+        }
+
+        /**
+         * 获取UTF-8编码的内容，可直接写入响应，调用方不得修改
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * 获取解码后的文本
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * 获取文件的最后修改时间（毫秒）
+         */
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+}
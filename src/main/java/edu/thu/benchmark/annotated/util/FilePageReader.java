@@ -0,0 +1,167 @@
+package edu.thu.benchmark.annotated.util;
+
+import edu.thu.benchmark.annotated.entity.FilePage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 文件分页读取工具类
+ * 以字节偏移量作为游标按行或按字节读取文件的一部分，单次读取的内容不超过指定字节数，
+ * 客户端可以据此分页浏览或追踪大文件而无需服务端读入整个文件
+ */
+public final class FilePageReader {
+
+    private FilePageReader() {
+    }
+
+    /**
+     * 从指定偏移量开始读取
+     * 调用方必须先完成路径验证
+     *
+     * @param file 已验证的常规文件
+     * @param offset 起始字节偏移量（上一页的nextOffset）
+     * @param maxLines 最多读取的行数
+     * @param maxBytes 最多读取的字节数，小于起始位置字符的长度时仍返回该完整字符
+     * @return 读取结果，内容按UTF-8解码
+     */
+    public static FilePage read(Path file, long offset, int maxLines, int maxBytes) throws IOException {
+        byte[] chunk = BufferPool.getInstance().acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, chunk, offset, maxLines, maxBytes);
+        } finally {
+            BufferPool.getInstance().release(chunk);
+        }
+    }
+
+    /**
+     * 读取文件末尾的若干行
+     * 调用方必须先完成路径验证
+     *
+     * @param file 已验证的常规文件
+     * @param maxLines 最多读取的行数
+     * @param maxBytes 最多读取的字节数
+     * @return 读取结果，offset为返回内容在文件中的起始位置
+     */
+    public static FilePage tail(Path file, int maxLines, int maxBytes) throws IOException {
+        byte[] chunk = BufferPool.getInstance().acquire();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long windowStart = Math.max(0, size - maxBytes);
+
+            // 文件以换行结尾时，最后一个换行不作为行分隔
+            long end = size;
+            if (size > 0 && readFully(channel, chunk, size - 1, 1) == 1 && chunk[0] == '\n') {
+                end = size - 1;
+            }
+
+            // 从文件末尾向前扫描换行符
+            long start = -1;
+            long firstNewline = -1;
+            int newlines = 0;
+            long position = end;
+            while (start < 0 && position > windowStart) {
+                int length = (int) Math.min(chunk.length, position - windowStart);
+                position -= length;
+                int read = readFully(channel, chunk, position, length);
+                for (int i = read - 1; i >= 0; i--) {
+                    if (chunk[i] == '\n') {
+                        firstNewline = position + i;
+                        if (++newlines == maxLines) {
+                            start = position + i + 1;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            if (start < 0) {
+                // 字节数限制截断了第一行时，跳过不完整的行
+                start = windowStart > 0 && firstNewline >= 0 ? firstNewline + 1 : windowStart;
+            }
+            return read(channel, chunk, start, maxLines, maxBytes);
+        } finally {
+            BufferPool.getInstance().release(chunk);
+        }
+    }
+
+    private static FilePage read(FileChannel channel, byte[] chunk, long offset, int maxLines, int maxBytes)
+            throws IOException {
+        long size = channel.size();
+        long start = Math.min(Math.max(offset, 0), size);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxBytes, chunk.length));
+        long position = start;
+        int lines = 0;
+        while (lines < maxLines && out.size() < maxBytes) {
+            int read = readFully(channel, chunk, position, Math.min(chunk.length, maxBytes - out.size()));
+            if (read <= 0) {
+                break;
+            }
+            int length = read;
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] == '\n' && ++lines == maxLines) {
+                    length = i + 1;
+                    break;
+                }
+            }
+            out.write(chunk, 0, length);
+            position += length;
+        }
+
+        byte[] bytes = out.toByteArray();
+        int length = bytes.length;
+        if (lines < maxLines && position < size) {
+            // 因字节数限制截断时，不拆分多字节字符
+            length = utf8Boundary(bytes, length);
+            if (length == 0 && bytes.length > 0) {
+                // 字节数限制小于第一个字符的长度时仍返回该完整字符，保证nextOffset前进
+                bytes = new byte[readFully(channel, chunk, start, charLength(bytes[0]))];
+                System.arraycopy(chunk, 0, bytes, 0, bytes.length);
+                length = bytes.length;
+            }
+            position = start + length;
+        }
+        if (length > 0 && bytes[length - 1] != '\n' && lines < maxLines) {
+            lines++;
+        }
+        return new FilePage(new String(bytes, 0, length, StandardCharsets.UTF_8), start, position, size, lines);
+    }
+
+    private static int readFully(FileChannel channel, byte[] chunk, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(chunk, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        return buffer.position();
+    }
+
+    /**
+     * 返回不拆分末尾UTF-8字符的最大长度
+     */
+    private static int utf8Boundary(byte[] bytes, int length) {
+        int lead = length - 1;
+        while (lead > 0 && length - lead < 4 && (bytes[lead] & 0xC0) == 0x80) {
+            lead--;
+        }
+        if (lead < 0) {
+            return length;
+        }
+        return lead + charLength(bytes[lead]) > length ? lead : length;
+    }
+
+    /**
+     * 根据首字节返回UTF-8字符的字节数，非法首字节按单字节处理
+     */
+    private static int charLength(byte lead) {
+        int b = lead & 0xFF;
+        return b < 0x80 ? 1 : b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+    }
+}
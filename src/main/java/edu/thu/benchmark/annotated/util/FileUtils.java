@@ -1,13 +1,16 @@
 package edu.thu.benchmark.annotated.util;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -16,6 +19,13 @@ import java.util.List;
  */
 public class FileUtils {
 
+    // 数组的最大长度，与Files.readAllBytes一致
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    // 单次读取的最大字节数：JDK读取堆缓冲区时会先读入同样大小的临时直接缓冲区，
+    // 限制单次大小可以让该临时缓冲区被线程缓存复用，而不是每次分配与文件等大的直接内存
+    private static final int READ_CHUNK_SIZE = 256 * 1024;
+
     /**
      * 不安全的文件读取实现
      * 直接使用无验证的路径读取文件
@@ -28,11 +38,7 @@ public class FileUtils {
         try {
             // 不安全：直接拼接路径而不验证
             File file = new File(basePath, filePath);
-            byte[] content = new byte[(int) file.length()];
-            try (FileInputStream fis = new FileInputStream(file)) {
-                fis.read(content);
-            }
-            return new String(content, StandardCharsets.UTF_8);
+            return new String(readAllBytes(file.toPath()), StandardCharsets.UTF_8);
         } catch (IOException e) {
             return "Error reading file: " + e.getMessage();
         }
@@ -48,24 +54,76 @@ public class FileUtils {
      */
     public static String readFileSafe(String basePath, String filePath) {
         try {
-            // 安全：规范化路径并验证
-            Path base = Paths.get(basePath).toAbsolutePath().normalize();
-            Path resolved = base.resolve(filePath).normalize();
-            
-            // 验证最终路径是否在基础目录内
-            if (!resolved.startsWith(base)) {
-                throw new SecurityException("Access to the file is not allowed");
-            }
-            
-            if (!Files.isRegularFile(resolved)) {
-                throw new IOException("File not found or not a regular file");
-            }
-            
-            return new String(Files.readAllBytes(resolved), StandardCharsets.UTF_8);
+            Path resolved = resolveFileSafe(basePath, filePath);
+            return new String(readAllBytes(resolved), StandardCharsets.UTF_8);
         } catch (Exception e) {
             return "Error reading file: " + e.getMessage();
         }
     }
+
+    /**
+     * 读取文件的全部内容
+     * 按实际读取的字节数返回，不受短读取影响，文件在读取期间增长或截断时同样返回完整内容；
+     * 所有大小的文件都分块读取，不使用内存映射：映射区域在文件被截断后访问会触发SIGBUS
+     *
+     * @param file 文件路径
+     * @return 文件内容
+     * @throws IOException 读取失败或文件超过数组的最大长度
+     */
+    public static byte[] readAllBytes(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_ARRAY_SIZE) {
+                throw new IOException("File too large to read into memory: " + size + " bytes");
+            }
+
+            return readFully(channel, new byte[(int) size]);
+        }
+    }
+
+    /**
+     * 从通道开头分块读取到文件末尾
+     */
+    private static byte[] readFully(FileChannel channel, byte[] content) throws IOException {
+        int length = 0;
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        while (true) {
+            while (length < content.length) {
+                buffer.limit(Math.min(content.length, length + READ_CHUNK_SIZE)).position(length);
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    // 文件在读取期间被截断
+                    return Arrays.copyOf(content, length);
+                }
+                length += read;
+            }
+
+            // 文件在读取期间增长时继续读取
+            ByteBuffer probe = ByteBuffer.allocate(1);
+            if (channel.read(probe) <= 0) {
+                return content;
+            }
+            if (length == MAX_ARRAY_SIZE) {
+                throw new IOException("File too large to read into memory");
+            }
+            content = Arrays.copyOf(content, (int) Math.min(MAX_ARRAY_SIZE, Math.max(length * 2L, length + READ_CHUNK_SIZE)));
+            content[length++] = probe.get(0);
+            buffer = ByteBuffer.wrap(content);
+        }
+    }
+
+    /**
+     * 安全的文件路径解析
+     * 规范化路径并验证文件位于基础目录内
+     *
+     * @param basePath 基础路径
+     * @param filePath 文件路径
+     * @return 已验证的常规文件路径
+     */
+    public static Path resolveFileSafe(String basePath, String filePath) throws IOException {
+        // 安全：规范化路径并验证最终路径（含符号链接）位于基础目录内
+        return PathGuard.getInstance().resolveFile(basePath, filePath);
+    }
     
     /**
      * 不安全的目录内容列表实现
@@ -103,28 +161,20 @@ public class FileUtils {
     public static List<String> listDirectorySafe(String basePath, String dirPath) {
         List<String> result = new ArrayList<>();
         try {
-            // 安全：规范化路径并验证
-            Path base = Paths.get(basePath).toAbsolutePath().normalize();
-            Path resolved = base.resolve(dirPath).normalize();
-            
-            // 验证最终路径是否在基础目录内
-            if (!resolved.startsWith(base)) {
-                throw new SecurityException("Access to the directory is not allowed");
-            }
-            
-            if (!Files.isDirectory(resolved)) {
-                throw new IOException("Directory not found");
+            // 安全：规范化路径并验证最终路径（含符号链接）位于基础目录内
+            Path resolved = PathGuard.getInstance().resolveDirectory(basePath, dirPath);
+
+            try (DirectoryStream<Path> stream = DirectoryLister.open(resolved, null)) {
+                for (Path path : stream) {
+                    result.add(path.getFileName().toString());
+                }
             }
-            
-            Files.list(resolved).forEach(path -> {
-                result.add(path.getFileName().toString());
-            });
         } catch (Exception e) {
             result.add("Error listing directory: " + e.getMessage());
         }
         return result;
     }
-    
+
     /**
      * 不安全的文件路径拼接实现
      * 直接拼接路径而不验证
@@ -148,16 +198,8 @@ public class FileUtils {
      */
     public static String joinPathsSafe(String basePath, String relativePath) {
         try {
-            // 安全：规范化路径并验证
-            Path base = Paths.get(basePath).toAbsolutePath().normalize();
-            Path resolved = base.resolve(relativePath).normalize();
-            
-            // 验证最终路径是否在基础目录内
-            if (!resolved.startsWith(base)) {
-                throw new SecurityException("Resulting path is outside the base directory");
-            }
-            
-            return resolved.toString();
+            // 安全：规范化路径并验证最终路径是否在基础目录内
+            return PathGuard.getInstance().resolveLexical(basePath, relativePath).toString();
         } catch (Exception e) {
             return null; // 返回null表示路径不安全
         }
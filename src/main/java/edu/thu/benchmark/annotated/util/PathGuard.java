@@ -0,0 +1,351 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 路径安全校验组件
+ * 缓存规范化后的基础目录，并将(基础目录, 相对路径)的校验结果记入有界并发缓存，
+ * 通过WatchService监听路径上每一级目录的创建和删除事件使缓存失效。
+ * 校验使用toRealPath逐级解析符号链接，指向基础目录之外的符号链接会被拒绝。
+ */
+public final class PathGuard {
+
+    /**
+     * 目标路径类型
+     */
+    public enum Kind {
+        FILE, DIRECTORY, ANY
+    }
+
+    private static final int DEFAULT_MAX_ENTRIES = 10000;
+    private static final int MAX_WATCHED_DIRECTORIES = 4096;
+
+    private static final PathGuard INSTANCE = new PathGuard(DEFAULT_MAX_ENTRIES);
+
+    private final int maxEntries;
+    private final Map<String, BaseDirectory> baseDirectories = new ConcurrentHashMap<>();
+    private final Map<String, Decision> decisions = new ConcurrentHashMap<>();
+    // 目录项 -> 依赖该目录项的缓存键
+    private final Map<Path, Set<String>> dependents = new ConcurrentHashMap<>();
+    private final Map<Path, WatchKey> watchedDirectories = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile WatchService watchService;
+    private volatile boolean watchUnavailable;
+
+    PathGuard(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 获取共享实例
+     */
+    public static PathGuard getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 获取规范化后的基础目录
+     */
+    public Path normalizedBase(String baseDir) {
+        return baseDirectory(baseDir).normalized;
+    }
+
+    /**
+     * 仅做词法校验：规范化路径并验证其位于基础目录内，不访问文件系统
+     *
+     * @return 规范化后的路径
+     */
+    public Path resolveLexical(String baseDir, String relativePath) {
+        Path base = normalizedBase(baseDir);
+        Path resolved = base.resolve(relativePath).normalize();
+        if (!resolved.startsWith(base)) {
+            throw new SecurityException("Access to the path is not allowed");
+        }
+        return resolved;
+    }
+
+    /**
+     * 解析基础目录中的常规文件
+     *
+     * @return 文件的真实路径
+     */
+    public Path resolveFile(String baseDir, String relativePath) throws IOException {
+        return resolve(baseDir, relativePath, Kind.FILE);
+    }
+
+    /**
+     * 解析基础目录中的目录
+     *
+     * @return 目录的真实路径
+     */
+    public Path resolveDirectory(String baseDir, String relativePath) throws IOException {
+        return resolve(baseDir, relativePath, Kind.DIRECTORY);
+    }
+
+    /**
+     * 解析并校验路径
+     *
+     * @param baseDir 基础目录
+     * @param relativePath 用户提供的相对路径
+     * @param kind 目标路径类型
+     * @return 目标的真实路径
+     * @throws SecurityException 路径位于基础目录之外
+     * @throws IOException 目标不存在或类型不符
+     */
+    public Path resolve(String baseDir, String relativePath, Kind kind) throws IOException {
+        String key = kind.ordinal() + "\0" + baseDir + "\0" + relativePath;
+        Decision cached = decisions.get(key);
+        if (cached != null) {
+            return cached.realPath;
+        }
+
+        long generation = invalidations.get();
+        BaseDirectory base = baseDirectory(baseDir);
+
+        // 词法校验，与原有的normalize + startsWith校验一致
+        Path lexical = base.normalized.resolve(relativePath).normalize();
+        if (!lexical.startsWith(base.normalized)) {
+            throw new SecurityException("Access to the path is not allowed");
+        }
+
+        Path baseReal = base.realPath();
+        Path current = baseReal;
+        List<Path> entries = new ArrayList<>();
+        List<Path> directories = new ArrayList<>();
+        try {
+            // 逐级解析，记录途经的每个目录项以便在其变化时使缓存失效
+            for (Path name : base.normalized.relativize(lexical)) {
+                if (name.toString().isEmpty()) {
+                    continue;
+                }
+                directories.add(current);
+                Path entry = current.resolve(name.toString());
+                entries.add(entry);
+                current = entry.toRealPath();
+            }
+        } catch (NoSuchFileException e) {
+            throw new IOException(notFoundMessage(kind));
+        }
+
+        // 符号链接解析后仍须位于基础目录内
+        if (!current.startsWith(baseReal)) {
+            throw new SecurityException("Access to the path is not allowed");
+        }
+        if ((kind == Kind.FILE && !Files.isRegularFile(current, LinkOption.NOFOLLOW_LINKS))
+                || (kind == Kind.DIRECTORY && !Files.isDirectory(current, LinkOption.NOFOLLOW_LINKS))) {
+            throw new IOException(notFoundMessage(kind));
+        }
+
+        if (!entries.isEmpty() && watchAll(directories)) {
+            cache(key, new Decision(current, entries), generation);
+        }
+        return current;
+    }
+
+    /**
+     * 清空所有缓存的校验结果
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        decisions.clear();
+        dependents.clear();
+    }
+
+    /**
+     * 获取缓存的校验结果数量
+     */
+    public int size() {
+        return decisions.size();
+    }
+
+    private BaseDirectory baseDirectory(String baseDir) {
+        return baseDirectories.computeIfAbsent(baseDir,
+                dir -> new BaseDirectory(Paths.get(dir).toAbsolutePath().normalize()));
+    }
+
+    private static String notFoundMessage(Kind kind) {
+        switch (kind) {
+            case FILE:
+                return "File not found or not a regular file";
+            case DIRECTORY:
+                return "Directory not found";
+            default:
+                return "Path not found";
+        }
+    }
+
+    private void cache(String key, Decision decision, long generation) {
+        if (decisions.size() >= maxEntries) {
+            evict(maxEntries / 8 + 1);
+        }
+        decisions.put(key, decision);
+        for (Path entry : decision.entries) {
+            dependents.computeIfAbsent(entry, p -> ConcurrentHashMap.newKeySet()).add(key);
+        }
+        // 计算期间发生过失效事件时，结果可能已过期，不保留
+        if (invalidations.get() != generation) {
+            remove(key);
+        }
+    }
+
+    private void evict(int count) {
+        Iterator<String> keys = decisions.keySet().iterator();
+        while (count-- > 0 && keys.hasNext()) {
+            remove(keys.next());
+        }
+    }
+
+    private void remove(String key) {
+        Decision decision = decisions.remove(key);
+        if (decision == null) {
+            return;
+        }
+        for (Path entry : decision.entries) {
+            Set<String> keys = dependents.get(entry);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    dependents.remove(entry, keys);
+                }
+            }
+        }
+    }
+
+    /**
+     * 目录项被创建、删除或重命名时使依赖它的缓存失效
+     */
+    private void invalidate(Path entry) {
+        invalidations.incrementAndGet();
+        Set<String> keys = dependents.remove(entry);
+        if (keys != null) {
+            for (String key : keys) {
+                remove(key);
+            }
+        }
+    }
+
+    private boolean watchAll(List<Path> directories) {
+        WatchService service = watchService();
+        if (service == null) {
+            return false;
+        }
+        for (Path directory : directories) {
+            if (watchedDirectories.containsKey(directory)) {
+                continue;
+            }
+            if (watchedDirectories.size() >= MAX_WATCHED_DIRECTORIES) {
+                return false;
+            }
+            try {
+                WatchKey key = directory.register(service,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE);
+                watchedDirectories.put(directory, key);
+            } catch (IOException | ClosedWatchServiceException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private WatchService watchService() {
+        if (watchService != null || watchUnavailable) {
+            return watchService;
+        }
+        synchronized (this) {
+            if (watchService == null && !watchUnavailable) {
+                try {
+                    WatchService service = FileSystems.getDefault().newWatchService();
+                    Thread watcher = new Thread(() -> watchLoop(service), "path-guard-watcher");
+                    watcher.setDaemon(true);
+                    watcher.start();
+                    watchService = service;
+                } catch (IOException | UnsupportedOperationException e) {
+                    // 无法监听文件系统时不缓存校验结果
+                    watchUnavailable = true;
+                }
+            }
+            return watchService;
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = service.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    invalidateAll();
+                } else {
+                    invalidate(directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                // 目录已被删除，其下的缓存已在父目录的删除事件中失效
+                watchedDirectories.remove(directory, key);
+            }
+        }
+    }
+
+    /**
+     * 基础目录，真实路径在首次使用时解析
+     */
+    private static final class BaseDirectory {
+        private final Path normalized;
+        private volatile Path realPath;
+
+        BaseDirectory(Path normalized) {
+            this.normalized = normalized;
+        }
+
+        Path realPath() throws IOException {
+            Path real = realPath;
+            if (real == null) {
+                try {
+                    real = normalized.toRealPath();
+                } catch (NoSuchFileException e) {
+                    throw new IOException("Base directory not found");
+                }
+                realPath = real;
+            }
+            return real;
+        }
+    }
+
+    /**
+     * 缓存的校验结果
+     */
+    private static final class Decision {
+        private final Path realPath;
+        private final List<Path> entries;
+
+        Decision(Path realPath, List<Path> entries) {
+            this.realPath = realPath;
+            this.entries = Collections.unmodifiableList(entries);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 进程超时看门狗
+ * 超时后销毁进程树，并销毁所有仍持有进程输出管道的进程。
+ * 父进程退出后，后台子进程会被重新挂到init下，不再出现在descendants()中，但仍持有输出管道，
+ * 读取线程在这些进程退出前收不到EOF。启动监视时记录输出管道，超时后在/proc中查找持有者并销毁
+ */
+public final class ProcessTimeout implements AutoCloseable {
+
+    private static final Path PROC = Paths.get("/proc");
+
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "process-timeout-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Process process;
+    private final long timeoutMillis;
+    // 进程标准输出和标准错误的管道标识（如pipe:[12345]），不支持/proc时为空
+    private final Set<String> pipes;
+    private final ScheduledFuture<?> future;
+    private volatile boolean expired;
+
+    private ProcessTimeout(Process process, long timeoutMillis) {
+        this.process = process;
+        this.timeoutMillis = timeoutMillis;
+        this.pipes = outputPipes(process.pid());
+        this.future = WATCHDOG.schedule(() -> {
+            expired = true;
+            destroy();
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 开始监视进程，应在进程启动后立即调用
+     *
+     * @param process 要监视的进程
+     * @param timeoutMillis 超时时间（毫秒）
+     */
+    public static ProcessTimeout start(Process process, long timeoutMillis) {
+        return new ProcessTimeout(process, timeoutMillis);
+    }
+
+    /**
+     * 销毁进程及其所有子孙进程
+     * 先收集子孙进程再销毁父进程，避免子进程被重新挂到init下后无法找到
+     */
+    public static void destroyTree(Process process) {
+        List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+        process.destroyForcibly();
+        descendants.forEach(ProcessHandle::destroyForcibly);
+    }
+
+    /**
+     * 销毁进程树和所有持有进程输出管道的进程（包括已被重新挂到init下的后台进程），并关闭进程的标准流
+     */
+    public void destroy() {
+        List<ProcessHandle> holders = pipeHolders();
+        destroyTree(process);
+        holders.forEach(ProcessHandle::destroyForcibly);
+        closeQuietly(process.getOutputStream());
+        closeQuietly(process.getInputStream());
+        closeQuietly(process.getErrorStream());
+    }
+
+    /**
+     * 读取进程标准输出和标准错误指向的管道
+     */
+    private static Set<String> outputPipes(long pid) {
+        Set<String> pipes = new HashSet<>();
+        for (int fd = 1; fd <= 2; fd++) {
+            try {
+                String target = Files.readSymbolicLink(PROC.resolve(pid + "/fd/" + fd)).toString();
+                if (target.startsWith("pipe:")) {
+                    pipes.add(target);
+                }
+            } catch (IOException | UnsupportedOperationException e) {
+                // 进程已退出或系统不支持/proc，只能按进程树销毁
+            }
+        }
+        return pipes;
+    }
+
+    /**
+     * 在/proc中查找持有输出管道写入端的进程，只在超时时扫描一次
+     */
+    private List<ProcessHandle> pipeHolders() {
+        List<ProcessHandle> holders = new ArrayList<>();
+        if (pipes.isEmpty()) {
+            return holders;
+        }
+        // 本进程持有管道的读取端
+        long self = ProcessHandle.current().pid();
+        try (DirectoryStream<Path> processes = Files.newDirectoryStream(PROC, "[0-9]*")) {
+            for (Path directory : processes) {
+                long pid = Long.parseLong(directory.getFileName().toString());
+                if (pid != self && holdsPipe(directory)) {
+                    ProcessHandle.of(pid).ifPresent(holders::add);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error scanning processes holding the output pipe: " + e.getMessage());
+        }
+        return holders;
+    }
+
+    private boolean holdsPipe(Path directory) {
+        try (DirectoryStream<Path> fds = Files.newDirectoryStream(directory.resolve("fd"))) {
+            for (Path fd : fds) {
+                try {
+                    if (pipes.contains(Files.readSymbolicLink(fd).toString())) {
+                        return true;
+                    }
+                } catch (IOException e) {
+                    // 描述符已关闭
+                }
+            }
+        } catch (IOException e) {
+            // 进程已退出或无权访问
+        }
+        return false;
+    }
+
+    private static void closeQuietly(Closeable stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            // 进程已销毁，忽略
+        }
+    }
+
+    /**
+     * 检查是否已超时
+     */
+    public boolean isExpired() {
+        return expired;
+    }
+
+    /**
+     * 获取超时时间
+     */
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    /**
+     * 进程正常结束后取消看门狗
+     */
+    @Override
+    public void close() {
+        future.cancel(false);
+    }
+}
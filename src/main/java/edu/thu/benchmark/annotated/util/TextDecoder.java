@@ -0,0 +1,103 @@
+package edu.thu.benchmark.annotated.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * 流式文本解码工具类
+ * 使用同一个CharsetDecoder把输入流逐块解码到一个CharBuffer中，
+ * 块边界处不完整的多字节字符保留到下一块继续解码，不会被拆分成乱码
+ */
+public final class TextDecoder {
+
+    private static final int DEFAULT_CAPACITY = 8192;
+
+    // 预计大小可能来自不可信的元数据（如ZIP条目头），初始容量不超过该值，超出时再扩容
+    private static final int MAX_INITIAL_CAPACITY = 4 * 1024 * 1024;
+
+    private TextDecoder() {
+    }
+
+    /**
+     * 读取并解码输入流的全部内容，不关闭输入流
+     * 无法解码的字节替换为替换字符
+     *
+     * @param in 输入流
+     * @param charset 字符集
+     * @param sizeHint 预计的字节数，未知时传-1
+     * @return 解码后的文本
+     */
+    public static String decode(InputStream in, Charset charset, long sizeHint) throws IOException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        BufferPool bufferPool = BufferPool.getInstance();
+        byte[] buffer = bufferPool.acquire();
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer);
+            bytes.limit(0);
+            CharBuffer chars = CharBuffer.allocate(initialCapacity(decoder, sizeHint));
+
+            while (true) {
+                // 将上一块末尾未解码的字节移到缓冲区开头，再读入新数据
+                bytes.compact();
+                int read = in.read(buffer, bytes.position(), bytes.remaining());
+                if (read < 0) {
+                    bytes.flip();
+                    break;
+                }
+                bytes.position(bytes.position() + read);
+                bytes.flip();
+                chars = decode(decoder, bytes, chars, false);
+            }
+            chars = decode(decoder, bytes, chars, true);
+            while (decoder.flush(chars).isOverflow()) {
+                chars = grow(chars);
+            }
+
+            chars.flip();
+            return chars.toString();
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static CharBuffer decode(CharsetDecoder decoder, ByteBuffer bytes, CharBuffer chars,
+                                     boolean endOfInput) {
+        while (true) {
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            if (!result.isOverflow()) {
+                // 下溢：剩余字节不足一个完整字符，等待下一块
+                return chars;
+            }
+            chars = grow(chars);
+        }
+    }
+
+    private static int initialCapacity(CharsetDecoder decoder, long sizeHint) {
+        if (sizeHint < 0) {
+            return DEFAULT_CAPACITY;
+        }
+        // 按平均每字节字符数估算，通常无需扩容
+        long estimate = (long) (sizeHint * (double) decoder.averageCharsPerByte()) + 16;
+        return (int) Math.min(estimate, MAX_INITIAL_CAPACITY);
+    }
+
+    private static CharBuffer grow(CharBuffer chars) {
+        int capacity = chars.capacity();
+        if (capacity >= Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Decoded text too large");
+        }
+        CharBuffer larger = CharBuffer.allocate((int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity * 2L, 16)));
+        chars.flip();
+        larger.put(chars);
+        return larger;
+    }
+}
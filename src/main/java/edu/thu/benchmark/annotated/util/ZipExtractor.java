@@ -0,0 +1,332 @@
+package edu.thu.benchmark.annotated.util;
+
+import edu.thu.benchmark.annotated.entity.ZipExtractionResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * ZIP解压工具类
+ * 先读取中央目录并验证全部条目路径，一次性创建目录树，
+ * 再由多个工作线程各自打开ZipFile并行解压文件条目（ZipFile的读取在实例上同步，共用一个实例无法并行）。
+ * 解压受Limits限制：中央目录声明的大小和条目数在写入前检查，实际写入的字节数和压缩比在复制时检查，
+ * 超出限制时立即中止全部工作线程并删除本次已创建的文件和目录
+ */
+public final class ZipExtractor {
+
+    // 小于该大小的条目不检查压缩比，避免高度可压缩的小文件被误判
+    private static final long RATIO_THRESHOLD_BYTES = 1024 * 1024;
+
+    private ZipExtractor() {
+    }
+
+    /**
+     * 单个ZIP文件的解压限制
+     */
+    public static final class Limits {
+        private final long maxBytes;
+        private final int maxEntries;
+        private final int maxRatio;
+        private final int maxDepth;
+
+        /**
+         * @param maxBytes 解压后的总字节数上限
+         * @param maxEntries 条目数上限（含目录条目）
+         * @param maxRatio 单个条目解压后大小与压缩大小之比的上限
+         * @param maxDepth 条目相对解压目录的路径深度上限
+         */
+        public Limits(long maxBytes, int maxEntries, int maxRatio, int maxDepth) {
+            this.maxBytes = maxBytes;
+            this.maxEntries = maxEntries;
+            this.maxRatio = maxRatio;
+            this.maxDepth = maxDepth;
+        }
+    }
+
+    /**
+     * 解压ZIP文件
+     * 调用方必须先完成ZIP文件路径验证；条目路径在此验证，位于目标目录之外的条目被跳过并计为失败
+     *
+     * @param zipPath 已验证的ZIP文件
+     * @param targetDir 解压目录
+     * @param executor 工作线程池，为null时在调用线程中顺序解压
+     * @param parallelism 并行度（含调用线程）
+     * @param limits 解压限制
+     * @return 解压结果
+     * @throws SecurityException 超出解压限制，已创建的输出已被删除
+     */
+    public static ZipExtractionResult extract(Path zipPath, Path targetDir, ExecutorService executor,
+                                              int parallelism, Limits limits) throws IOException {
+        long start = System.nanoTime();
+        Path target = targetDir.toAbsolutePath().normalize();
+        Files.createDirectories(target);
+
+        AtomicInteger failed = new AtomicInteger();
+        List<String> fileEntries = new ArrayList<>();
+        List<Path> filePaths = new ArrayList<>();
+        Set<Path> directories = new HashSet<>();
+
+        // 读取中央目录，验证条目路径并收集需要创建的目录
+        try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+            if (zip.size() > limits.maxEntries) {
+                throw new SecurityException("ZIP file has too many entries: " + zip.size());
+            }
+            long declaredBytes = 0;
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                Path entryPath;
+                try {
+                    // 关键安全措施：规范化并验证条目路径
+                    entryPath = target.resolve(entry.getName()).normalize();
+                } catch (InvalidPathException e) {
+                    failed.incrementAndGet();
+                    System.err.println("Error extracting entry " + entry.getName() + ": " + e.getMessage());
+                    continue;
+                }
+
+                // 验证最终路径是否在解压目录内
+                if (!entryPath.startsWith(target)) {
+                    failed.incrementAndGet();
+                    System.err.println("Error extracting entry " + entry.getName()
+                            + ": ZIP entry is outside of the target directory: " + entry.getName());
+                    continue;
+                }
+                if (entryPath.equals(target)) {
+                    continue;
+                }
+                if (entryPath.getNameCount() - target.getNameCount() > limits.maxDepth) {
+                    throw new SecurityException("ZIP entry is nested too deeply: " + entry.getName());
+                }
+
+                // 声明的大小可能被伪造，复制时还会按实际字节数再次检查
+                if (entry.getSize() > 0) {
+                    declaredBytes += entry.getSize();
+                    if (declaredBytes > limits.maxBytes) {
+                        throw new SecurityException("ZIP file exceeds the extraction size limit");
+                    }
+                    checkRatio(entry, entry.getSize(), limits);
+                }
+
+                if (entry.isDirectory()) {
+                    addDirectory(directories, entryPath, target);
+                } else {
+                    fileEntries.add(entry.getName());
+                    filePaths.add(entryPath);
+                    addDirectory(directories, entryPath.getParent(), target);
+                }
+            }
+        }
+
+        // 记录本次创建的文件和目录，中止时据此清理
+        ConcurrentLinkedQueue<Path> createdFiles = new ConcurrentLinkedQueue<>();
+        List<Path> createdDirectories = new ArrayList<>();
+
+        // 按层级由浅到深创建目录树，每个目录只创建一次
+        List<Path> sortedDirectories = new ArrayList<>(directories);
+        sortedDirectories.sort(Comparator.comparingInt(Path::getNameCount));
+        for (Path directory : sortedDirectories) {
+            try {
+                if (!Files.isDirectory(directory)) {
+                    Files.createDirectory(directory);
+                    createdDirectories.add(directory);
+                }
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                System.err.println("Error creating directory " + directory + ": " + e.getMessage());
+            }
+        }
+
+        // 工作线程从共享下标领取条目，条目大小不均时也能保持负载均衡
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger extracted = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        Callable<Void> worker = () -> {
+            if (next.get() >= fileEntries.size()) {
+                // 条目已被其他线程领取完，不必再打开ZIP文件
+                return null;
+            }
+            try (ZipFile zip = new ZipFile(zipPath.toFile())) {
+                int index;
+                while ((index = next.getAndIncrement()) < fileEntries.size()) {
+                    String name = fileEntries.get(index);
+                    try {
+                        extractEntry(zip, name, filePaths.get(index), createdFiles, bytes, limits);
+                        extracted.incrementAndGet();
+                    } catch (SecurityException e) {
+                        // 超出限制：让其他工作线程不再领取新条目
+                        next.set(fileEntries.size());
+                        throw e;
+                    } catch (IOException | RuntimeException e) {
+                        // 记录错误但继续处理其他条目
+                        failed.incrementAndGet();
+                        System.err.println("Error extracting entry " + name + ": " + e.getMessage());
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                next.set(fileEntries.size());
+                throw e;
+            }
+            return null;
+        };
+
+        int workers = Math.max(1, Math.min(parallelism, fileEntries.size()));
+        List<Future<Void>> futures = new ArrayList<>();
+        if (executor != null) {
+            for (int i = 1; i < workers; i++) {
+                try {
+                    futures.add(executor.submit(worker));
+                } catch (RejectedExecutionException e) {
+                    // 线程池已满时减少并行度，调用线程仍会处理剩余条目
+                    break;
+                }
+            }
+        }
+        workers = futures.size() + 1;
+
+        Exception failure = null;
+        try {
+            // 调用线程同样参与解压
+            worker.call();
+        } catch (Exception e) {
+            failure = e;
+        }
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                // 先等待工作线程全部结束再清理，否则清理后仍可能有文件被创建；清理完成后再恢复中断状态
+                next.set(fileEntries.size());
+                awaitUninterruptibly(futures);
+                cleanUp(createdFiles, createdDirectories);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while extracting ZIP file");
+            } catch (ExecutionException e) {
+                // 超出限制的异常优先于其他错误报告
+                if (failure == null || e.getCause() instanceof SecurityException
+                        && !(failure instanceof SecurityException)) {
+                    failure = (Exception) e.getCause();
+                }
+            }
+        }
+        if (failure != null) {
+            cleanUp(createdFiles, createdDirectories);
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new IOException(failure.getMessage(), failure);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ZipExtractionResult(extracted.get(), sortedDirectories.size(), failed.get(), bytes.get(),
+                elapsedMillis, workers);
+    }
+
+    private static void extractEntry(ZipFile zip, String name, Path entryPath, ConcurrentLinkedQueue<Path> createdFiles,
+                                     AtomicLong totalBytes, Limits limits) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) {
+            throw new IOException("Entry not found");
+        }
+        BufferPool bufferPool = BufferPool.getInstance();
+        byte[] buffer = bufferPool.acquire();
+        try (InputStream is = zip.getInputStream(entry);
+             OutputStream os = Files.newOutputStream(entryPath, StandardOpenOption.CREATE_NEW,
+                     StandardOpenOption.WRITE)) {
+            createdFiles.add(entryPath);
+            long written = 0;
+            int len;
+            while ((len = is.read(buffer)) > 0) {
+                // 先计入预算再写入，超出限制的数据不会落盘
+                written += len;
+                if (totalBytes.addAndGet(len) > limits.maxBytes) {
+                    throw new SecurityException("ZIP file exceeds the extraction size limit");
+                }
+                checkRatio(entry, written, limits);
+                os.write(buffer, 0, len);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static void checkRatio(ZipEntry entry, long uncompressedBytes, Limits limits) {
+        if (uncompressedBytes > RATIO_THRESHOLD_BYTES
+                && uncompressedBytes > Math.max(entry.getCompressedSize(), 1) * limits.maxRatio) {
+            throw new SecurityException("ZIP entry exceeds the compression ratio limit: " + entry.getName());
+        }
+    }
+
+    /**
+     * 将目录及其位于解压目录内的全部上级目录加入集合
+     */
+    private static void addDirectory(Set<Path> directories, Path directory, Path target) {
+        while (directory != null && !directory.equals(target) && directories.add(directory)) {
+            directory = directory.getParent();
+        }
+    }
+
+    /**
+     * 等待全部工作线程结束，等待期间忽略中断，由调用方恢复中断状态
+     */
+    private static void awaitUninterruptibly(List<Future<Void>> futures) {
+        for (Future<Void> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    // 工作线程已停止领取条目，很快会结束
+                } catch (ExecutionException e) {
+                    // 已经在中止，忽略其他工作线程的错误
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 删除本次解压创建的文件和目录，目录由深到浅删除
+     */
+    private static void cleanUp(ConcurrentLinkedQueue<Path> createdFiles, List<Path> createdDirectories) {
+        for (Path file : createdFiles) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("Error deleting " + file + ": " + e.getMessage());
+            }
+        }
+        for (int i = createdDirectories.size() - 1; i >= 0; i--) {
+            try {
+                Files.deleteIfExists(createdDirectories.get(i));
+            } catch (IOException e) {
+                System.err.println("Error deleting " + createdDirectories.get(i) + ": " + e.getMessage());
+            }
+        }
+    }
+}
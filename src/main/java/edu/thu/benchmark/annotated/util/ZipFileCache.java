@@ -0,0 +1,287 @@
+package edu.thu.benchmark.annotated.util;
+
+import edu.thu.benchmark.annotated.entity.ZipEntryInfo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 已打开ZipFile句柄缓存
+ * 以验证后的真实路径为键，按修改时间和大小区分文件版本，同一版本的重复访问复用已解析的中央目录。
+ * 句柄按引用计数管理：文件被替换或缓存被淘汰时，仍在使用的句柄在最后一次释放后才关闭。
+ * 每个句柄还可以附带按名称排序的条目索引，与句柄同生命周期，文件版本变化时随句柄一起失效。
+ */
+public final class ZipFileCache implements AutoCloseable {
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "zip-file-cache-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxOpen;
+    private final long idleMillis;
+
+    // 访问顺序的LinkedHashMap，最久未使用的句柄位于头部
+    private final LinkedHashMap<Path, CachedZipFile> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ScheduledFuture<?> sweep;
+
+    /**
+     * @param maxOpen 同时缓存的最大句柄数
+     * @param idleMillis 句柄空闲多久后关闭（毫秒）
+     */
+    public ZipFileCache(int maxOpen, long idleMillis) {
+        this.maxOpen = maxOpen;
+        this.idleMillis = idleMillis;
+        long period = Math.max(idleMillis / 2, 1000);
+        this.sweep = SWEEPER.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 获取ZIP文件句柄，使用完毕后必须关闭返回的Handle
+     * 调用方必须先完成路径验证
+     *
+     * @param file 已验证的ZIP文件真实路径
+     */
+    public Handle acquire(Path file) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            invalidate(file);
+            throw new IOException("ZIP file not found");
+        }
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        synchronized (this) {
+            CachedZipFile cached = entries.get(file);
+            if (cached != null && cached.lastModified == lastModified && cached.size == size) {
+                cached.refs++;
+                return new Handle(cached);
+            }
+        }
+
+        // 未缓存或文件已被替换，在锁外打开并解析中央目录
+        CachedZipFile opened = new CachedZipFile(file, new ZipFile(file.toFile()), lastModified, size);
+        List<CachedZipFile> toClose = new ArrayList<>();
+        synchronized (this) {
+            CachedZipFile cached = entries.get(file);
+            if (cached != null && cached.lastModified == lastModified && cached.size == size) {
+                // 其他线程已打开同一版本
+                cached.refs++;
+                toClose.add(opened);
+                opened = cached;
+            } else {
+                if (cached != null) {
+                    retire(entries.remove(file), toClose);
+                }
+                opened.refs++;
+                entries.put(file, opened);
+                evictOverflow(toClose);
+            }
+        }
+        closeAll(toClose);
+        return new Handle(opened);
+    }
+
+    /**
+     * 移除指定文件的句柄，仍在使用的句柄在释放后关闭
+     */
+    public void invalidate(Path file) {
+        List<CachedZipFile> toClose = new ArrayList<>();
+        synchronized (this) {
+            CachedZipFile removed = entries.remove(file);
+            if (removed != null) {
+                retire(removed, toClose);
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * 获取缓存的句柄数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 关闭所有空闲句柄并停止空闲清理
+     */
+    @Override
+    public void close() {
+        sweep.cancel(false);
+        List<CachedZipFile> toClose = new ArrayList<>();
+        synchronized (this) {
+            for (CachedZipFile cached : entries.values()) {
+                retire(cached, toClose);
+            }
+            entries.clear();
+        }
+        closeAll(toClose);
+    }
+
+    private void release(CachedZipFile cached) {
+        boolean close;
+        synchronized (this) {
+            cached.refs--;
+            cached.lastUsed = System.nanoTime();
+            close = cached.retired && cached.refs == 0;
+        }
+        if (close) {
+            closeQuietly(cached);
+        }
+    }
+
+    /**
+     * 后台线程：关闭空闲超时的句柄
+     */
+    private void evictIdle() {
+        List<CachedZipFile> toClose = new ArrayList<>();
+        long deadline = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleMillis);
+        synchronized (this) {
+            Iterator<CachedZipFile> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                CachedZipFile cached = iterator.next();
+                if (cached.refs == 0 && cached.lastUsed - deadline < 0) {
+                    iterator.remove();
+                    retire(cached, toClose);
+                }
+            }
+        }
+        closeAll(toClose);
+    }
+
+    /**
+     * 超过句柄上限时淘汰最久未使用的空闲句柄，全部在使用时允许暂时超出上限
+     */
+    private void evictOverflow(List<CachedZipFile> toClose) {
+        Iterator<CachedZipFile> eldest = entries.values().iterator();
+        while (entries.size() > maxOpen && eldest.hasNext()) {
+            CachedZipFile cached = eldest.next();
+            if (cached.refs == 0) {
+                eldest.remove();
+                retire(cached, toClose);
+            }
+        }
+    }
+
+    private static void retire(CachedZipFile cached, List<CachedZipFile> toClose) {
+        cached.retired = true;
+        if (cached.refs == 0) {
+            toClose.add(cached);
+        }
+    }
+
+    private static void closeAll(List<CachedZipFile> toClose) {
+        for (CachedZipFile cached : toClose) {
+            closeQuietly(cached);
+        }
+    }
+
+    private static void closeQuietly(CachedZipFile cached) {
+        try {
+            cached.zipFile.close();
+        } catch (IOException e) {
+            System.err.println("Error closing ZIP file " + cached.file + ": " + e.getMessage());
+        }
+    }
+
+    private static List<ZipEntryInfo> buildIndex(ZipFile zipFile) {
+        List<ZipEntryInfo> index = new ArrayList<>(zipFile.size());
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            index.add(new ZipEntryInfo(entry.getName(), entry.isDirectory(), entry.getSize(),
+                    entry.getCompressedSize(), entry.getCrc(), entry.getTime()));
+        }
+        index.sort(Comparator.comparing(ZipEntryInfo::getName));
+        return Collections.unmodifiableList(index);
+    }
+
+    /**
+     * 缓存的ZIP文件句柄
+     */
+    private static final class CachedZipFile {
+        private final Path file;
+        private final ZipFile zipFile;
+        private final long lastModified;
+        private final long size;
+        // 以下字段在缓存锁内访问
+        private int refs;
+        private boolean retired;
+        private long lastUsed = System.nanoTime();
+        // 首次列出条目时构建
+        private volatile List<ZipEntryInfo> entryIndex;
+
+        CachedZipFile(Path file, ZipFile zipFile, long lastModified, long size) {
+            this.file = file;
+            this.zipFile = zipFile;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+    }
+
+    /**
+     * 借出的句柄，关闭时释放引用而不是关闭ZipFile
+     */
+    public final class Handle implements AutoCloseable {
+        private final CachedZipFile cached;
+        private boolean released;
+
+        private Handle(CachedZipFile cached) {
+            this.cached = cached;
+        }
+
+        /**
+         * 获取ZipFile，不得在Handle关闭后使用，也不得直接关闭
+         */
+        public ZipFile getZipFile() {
+            return cached.zipFile;
+        }
+
+        /**
+         * 获取按名称排序的条目元数据，只读取中央目录，不解压任何条目
+         *
+         * @return 不可修改的条目列表
+         */
+        public List<ZipEntryInfo> getEntryIndex() {
+            List<ZipEntryInfo> index = cached.entryIndex;
+            if (index == null) {
+                synchronized (cached) {
+                    index = cached.entryIndex;
+                    if (index == null) {
+                        index = buildIndex(cached.zipFile);
+                        cached.entryIndex = index;
+                    }
+                }
+            }
+            return index;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(cached);
+            }
+        }
+    }
+}
@@ -15,7 +15,8 @@ CREATE TABLE IF NOT EXISTS files (
     filepath VARCHAR(500) NOT NULL,
     content_type VARCHAR(100),
     size BIGINT,
-    upload_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    upload_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    content_hash VARCHAR(64)
 );
 
 -- 命令执行记录表（用于命令注入漏洞）
@@ -25,6 +26,7 @@ CREATE TABLE IF NOT EXISTS command_executions (
     executed_by VARCHAR(50),
     execution_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     status VARCHAR(20),
+    duration_ms BIGINT,
     output TEXT
 );
 